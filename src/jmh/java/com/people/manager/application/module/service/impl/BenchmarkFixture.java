@@ -0,0 +1,197 @@
+package com.people.manager.application.module.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.people.manager.application.module.codec.JsonPersonCodec;
+import com.people.manager.application.module.codec.PersonPayloads;
+import com.people.manager.application.module.codec.SmilePersonCodec;
+import com.people.manager.application.module.configs.JacksonConfig;
+import com.people.manager.application.module.infra.CacheLease;
+import com.people.manager.application.module.infra.NearCache;
+import com.people.manager.application.module.model.Address;
+import com.people.manager.application.module.model.Person;
+import com.people.manager.application.module.model.PersonView;
+import com.people.manager.application.module.repository.PersonRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generated dataset and a {@link RedisCacheService} wired by hand against a local Redis.
+ * Connection settings come from the {@code bench.redis.*} system properties; the
+ * benchmarks own logical DB {@code bench.redis.db}.
+ */
+final class BenchmarkFixture {
+
+    static final int STATES = 27;
+    static final int CITIES = 5_000;
+    static final long GENERATION = 1;
+
+    final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    final List<Person> people;
+    final RedisTemplate<String, Object> template;
+    final RedisCacheService service;
+
+    private final List<LettuceConnectionFactory> factories = new ArrayList<>();
+
+    BenchmarkFixture(int size, String codec) {
+        this.people = generate(size);
+        this.template = template(Integer.getInteger("bench.redis.db", 15));
+
+        PersonPayloads payloads = new PersonPayloads(
+                List.of(new JsonPersonCodec(objectMapper), new SmilePersonCodec()), objectMapper, codec);
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(template.getConnectionFactory());
+
+        this.service = new RedisCacheService(
+                payloads,
+                template,
+                template,
+                repository(people),
+                new NearCache(new SimpleMeterRegistry(), 1),
+                new CacheLease(template, 60_000),
+                new SimpleMeterRegistry(),
+                container,
+                1_000,
+                1_000,
+                false,
+                2,
+                10_000,
+                true,
+                0.01,
+                4,
+                8,
+                16,
+                100);
+        flush();
+    }
+
+    /**
+     * Empties the benchmark DB and points the cache back at {@link #GENERATION},
+     * which the flush would otherwise leave the service resolving as generation 0.
+     */
+    void flush() {
+        template.execute(connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        }, true);
+        template.opsForValue().set("{cache}:live", String.valueOf(GENERATION));
+        template.opsForValue().set("{cache}:version", "1");
+    }
+
+    void close() {
+        service.shutdown();
+        factories.forEach(LettuceConnectionFactory::destroy);
+    }
+
+    static String city(int rank) {
+        return "City " + rank;
+    }
+
+    private RedisTemplate<String, Object> template(int database) {
+        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(
+                System.getProperty("bench.redis.host", "localhost"),
+                Integer.getInteger("bench.redis.port", 6379));
+        String password = System.getProperty("bench.redis.password");
+        if (password != null) {
+            config.setPassword(RedisPassword.of(password));
+        }
+        config.setDatabase(database);
+
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(config);
+        factory.setPipeliningFlushPolicy(LettuceConnection.PipeliningFlushPolicy.flushOnClose());
+        factory.afterPropertiesSet();
+        factory.start();
+        factories.add(factory);
+
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(factory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new StringRedisSerializer());
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    /**
+     * People with ids 1..size spread over {@link #CITIES} cities with a skewed,
+     * roughly power-law distribution, as real population data is.
+     */
+    static List<Person> generate(int size) {
+        Random random = new Random(2024);
+        List<Person> people = new ArrayList<>(size);
+        for (int id = 1; id <= size; id++) {
+            int cityRank = (int) (Math.pow(random.nextDouble(), 3) * CITIES);
+            LocalDateTime timestamp = LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(random.nextInt(500_000));
+
+            Person person = new Person();
+            person.setId((long) id);
+            person.setName("Person " + id);
+            person.setCpf(String.format("%011d", id));
+            person.setBirthDate(LocalDate.of(1940, 1, 1).plusDays(random.nextInt(30_000)));
+            person.setPhoneNumber("+55 11 9" + (10_000_000 + random.nextInt(89_999_999)));
+            person.setEmail("person" + id + "@example.com");
+            person.setCreatedAt(timestamp);
+            person.setUpdatedAt(timestamp);
+
+            Address address = new Address();
+            address.setId((long) id);
+            address.setPerson(person);
+            address.setCountry("Brasil");
+            address.setState("State " + cityRank % STATES);
+            address.setCity(city(cityRank));
+            address.setDistrict("Centro");
+            address.setStreet("Rua " + random.nextInt(1_000));
+            address.setLatitude(-33 + random.nextDouble() * 38);
+            address.setLongitude(-73 + random.nextDouble() * 39);
+            address.setCreatedAt(timestamp);
+            address.setUpdatedAt(timestamp);
+            person.setAddress(address);
+            people.add(person);
+        }
+        return people;
+    }
+
+    private static PersonView view(Person p) {
+        Address a = p.getAddress();
+        return new PersonView(p.getId(), p.getName(), p.getCpf(), p.getBirthDate(), p.getPhoneNumber(), p.getEmail(),
+                p.getCreatedAt(), p.getUpdatedAt(), a.getId(), a.getCountry(), a.getCity(), a.getState(),
+                a.getDistrict(), a.getStreet(), a.getAddressDetail(), a.getLatitude(), a.getLongitude(),
+                a.getCreatedAt(), a.getUpdatedAt());
+    }
+
+    /**
+     * Serves the keyset queries of the rebuild from the generated list; ids are
+     * dense, so {@code afterId} is also the list offset.
+     */
+    private static PersonRepository repository(List<Person> people) {
+        return (PersonRepository) Proxy.newProxyInstance(
+                PersonRepository.class.getClassLoader(),
+                new Class<?>[]{PersonRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findViewChunkBetween" -> {
+                        int from = (int) Math.min((long) args[0], people.size());
+                        int to = (int) Math.min(Math.min(from + ((Limit) args[2]).max(), (long) args[1]), people.size());
+                        yield people.subList(from, to).stream().map(BenchmarkFixture::view).toList();
+                    }
+                    case "count" -> (long) people.size();
+                    case "findMinId" -> people.isEmpty() ? null : 1L;
+                    case "findMaxId" -> people.isEmpty() ? null : (long) people.size();
+                    case "toString" -> "BenchmarkPersonRepository";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,66 @@
+package com.people.manager.application.module.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.people.manager.application.module.codec.SmilePersonCodec;
+import com.people.manager.application.module.configs.JacksonConfig;
+import com.people.manager.application.module.model.Person;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Person (de)serialization with the application's {@link JacksonConfig} mapper,
+ * next to the Smile codec. Needs no Redis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonSerializationBenchmark {
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final SmilePersonCodec smile = new SmilePersonCodec();
+
+    private Person person;
+    private byte[] json;
+    private byte[] smileBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        person = BenchmarkFixture.generate(1).get(0);
+        json = objectMapper.writeValueAsBytes(person);
+        smileBytes = smile.encode(person);
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() throws IOException {
+        return objectMapper.writeValueAsBytes(person);
+    }
+
+    @Benchmark
+    public Person jsonDeserialize() throws IOException {
+        return objectMapper.readValue(json, Person.class);
+    }
+
+    @Benchmark
+    public byte[] smileSerialize() throws IOException {
+        return smile.encode(person);
+    }
+
+    @Benchmark
+    public Person smileDeserialize() throws IOException {
+        return smile.decode(smileBytes, 0, smileBytes.length);
+    }
+}
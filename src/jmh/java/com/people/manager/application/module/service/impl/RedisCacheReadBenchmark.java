@@ -0,0 +1,82 @@
+package com.people.manager.application.module.service.impl;
+
+import com.people.manager.application.module.infra.CacheKeys;
+import com.people.manager.application.module.model.Person;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisCacheReadBenchmark {
+
+    @Param({"10000"})
+    public int people;
+
+    @Param({"json", "smile"})
+    public String codec;
+
+    /** Popularity rank of the queried city: 0 is the largest one. */
+    @Param({"0", "500"})
+    public int cityRank;
+
+    private BenchmarkFixture fixture;
+    private String cityIndex;
+    private Set<String> cityKeys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new BenchmarkFixture(people, codec);
+        fixture.flush();
+        fixture.service.cachePeopleInBatches(BenchmarkFixture.GENERATION, () -> { });
+
+        cityIndex = CacheKeys.byCity(BenchmarkFixture.city(cityRank));
+        cityKeys = fixture.service.getIndexMembers(cityIndex);
+        if (cityKeys.isEmpty()) {
+            throw new IllegalStateException("Index " + cityIndex + " is empty; the benchmark would read nothing");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Set<String> getIndexMembers() {
+        return fixture.service.getIndexMembers(cityIndex);
+    }
+
+    @Benchmark
+    public List<Person> getPeopleByKeys() {
+        return fixture.service.getPeopleByKeys(cityKeys);
+    }
+
+    @Benchmark
+    public List<Person> getPeopleByIndex() {
+        return fixture.service.getPeopleByIndex(cityIndex);
+    }
+
+    @Benchmark
+    public List<byte[]> getJsonByIndex() {
+        return fixture.service.getJsonByIndex(cityIndex);
+    }
+}
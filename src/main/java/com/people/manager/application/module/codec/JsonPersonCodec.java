@@ -0,0 +1,39 @@
+package com.people.manager.application.module.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.people.manager.application.module.model.Person;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+@Component
+public class JsonPersonCodec implements PersonCodec {
+
+    static final byte FORMAT = 1;
+
+    private final ObjectMapper objectMapper;
+
+    public JsonPersonCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String name() {
+        return "json";
+    }
+
+    @Override
+    public byte format() {
+        return FORMAT;
+    }
+
+    @Override
+    public byte[] encode(Person person) throws IOException {
+        return objectMapper.writeValueAsBytes(person);
+    }
+
+    @Override
+    public Person decode(byte[] data, int offset, int length) throws IOException {
+        return objectMapper.readValue(data, offset, length, Person.class);
+    }
+}
@@ -0,0 +1,21 @@
+package com.people.manager.application.module.codec;
+
+import com.people.manager.application.module.model.Person;
+
+import java.io.IOException;
+
+/**
+ * Encodes cached {@link Person} payloads. Every stored payload starts with the
+ * one-byte {@link #format()} of the codec that wrote it, so readers can decode
+ * buffers written before and after a format change.
+ */
+public interface PersonCodec {
+
+    String name();
+
+    byte format();
+
+    byte[] encode(Person person) throws IOException;
+
+    Person decode(byte[] data, int offset, int length) throws IOException;
+}
@@ -0,0 +1,79 @@
+package com.people.manager.application.module.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.people.manager.application.module.model.Person;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes {@code person_*} values with the configured codec and reads values
+ * written by any known codec, including legacy JSON without a format header.
+ */
+@Slf4j
+@Component
+public class PersonPayloads {
+
+    private final PersonCodec writer;
+    private final PersonCodec[] readers = new PersonCodec[Byte.MAX_VALUE + 1];
+    private final ObjectMapper objectMapper;
+
+    public PersonPayloads(List<PersonCodec> codecs,
+                          ObjectMapper objectMapper,
+                          @Value("${cache.codec:json}") String codecName) {
+        this.objectMapper = objectMapper;
+        this.writer = codecs.stream()
+                .filter(codec -> codec.name().equalsIgnoreCase(codecName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown cache codec: " + codecName));
+        for (PersonCodec codec : codecs) {
+            readers[codec.format()] = codec;
+        }
+        log.info("Caching person payloads with the {} codec", writer.name());
+    }
+
+    public byte[] encode(Person person) throws IOException {
+        byte[] body = writer.encode(person);
+        byte[] payload = new byte[body.length + 1];
+        payload[0] = writer.format();
+        System.arraycopy(body, 0, payload, 1, body.length);
+        return payload;
+    }
+
+    public Person decode(byte[] payload) throws IOException {
+        if (isLegacyJson(payload)) {
+            return objectMapper.readValue(payload, Person.class);
+        }
+        return reader(payload).decode(payload, 1, payload.length - 1);
+    }
+
+    /**
+     * Returns the payload as the JSON served by the API. JSON payloads are only
+     * stripped of their header; other formats are decoded and re-encoded.
+     */
+    public byte[] toJson(byte[] payload) throws IOException {
+        if (isLegacyJson(payload)) {
+            return payload;
+        }
+        if (payload[0] == JsonPersonCodec.FORMAT) {
+            return Arrays.copyOfRange(payload, 1, payload.length);
+        }
+        return objectMapper.writeValueAsBytes(reader(payload).decode(payload, 1, payload.length - 1));
+    }
+
+    private PersonCodec reader(byte[] payload) throws IOException {
+        PersonCodec codec = payload.length == 0 || payload[0] < 0 ? null : readers[payload[0]];
+        if (codec == null) {
+            throw new IOException("Unknown person payload format: " + (payload.length == 0 ? "empty" : payload[0]));
+        }
+        return codec;
+    }
+
+    private static boolean isLegacyJson(byte[] payload) {
+        return payload.length > 0 && payload[0] == '{';
+    }
+}
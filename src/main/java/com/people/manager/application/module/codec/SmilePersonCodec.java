@@ -0,0 +1,43 @@
+package com.people.manager.application.module.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileParser;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.people.manager.application.module.model.Person;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+@Component
+public class SmilePersonCodec implements PersonCodec {
+
+    static final byte FORMAT = 2;
+
+    private final ObjectMapper smileMapper = new ObjectMapper(SmileFactory.builder()
+            .disable(SmileGenerator.Feature.WRITE_HEADER)
+            .disable(SmileParser.Feature.REQUIRE_HEADER)
+            .build())
+            .registerModule(new JavaTimeModule());
+
+    @Override
+    public String name() {
+        return "smile";
+    }
+
+    @Override
+    public byte format() {
+        return FORMAT;
+    }
+
+    @Override
+    public byte[] encode(Person person) throws IOException {
+        return smileMapper.writeValueAsBytes(person);
+    }
+
+    @Override
+    public Person decode(byte[] data, int offset, int length) throws IOException {
+        return smileMapper.readValue(data, offset, length, Person.class);
+    }
+}
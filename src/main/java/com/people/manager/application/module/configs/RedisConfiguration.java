@@ -1,17 +1,29 @@
 package com.people.manager.application.module.configs;
 
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.api.StatefulConnection;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisSentinelConfiguration;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.util.HashSet;
+import java.util.List;
+
 @Configuration
 public class RedisConfiguration {
 
@@ -24,50 +36,96 @@ public class RedisConfiguration {
     @Value("${spring.redis.password}")
     private String redisPassword;
 
-    @Value("${redis.db.control}")
-    private int redisDbControl;
+    @Value("${redis.db:0}")
+    private int redisDb;
 
-    @Value("${redis.db.buffer1}")
-    private int redisDbBuffer1;
+    @Value("${redis.topology:standalone}")
+    private String redisTopology;
 
-    @Value("${redis.db.buffer2}")
-    private int redisDbBuffer2;
+    @Value("${redis.nodes:}")
+    private List<String> redisNodes;
 
-    @Bean
-    public RedisConnectionFactory redisConnectionFactoryControl() {
-        return createConnectionFactory(redisDbControl);
-    }
+    @Value("${redis.sentinel.master:mymaster}")
+    private String redisSentinelMaster;
+
+    @Value("${redis.read-from:replicaPreferred}")
+    private String redisReadFrom;
+
+    @Value("${redis.pool.max-active:16}")
+    private int poolMaxActive;
 
+    @Value("${redis.pool.min-idle:2}")
+    private int poolMinIdle;
+
+    /**
+     * Writes, scripts and the cache pointer: always served by the master.
+     */
     @Bean
-    public RedisConnectionFactory redisConnectionFactoryBuffer1() {
-        return createConnectionFactory(redisDbBuffer1);
+    @Primary
+    public RedisConnectionFactory redisConnectionFactory() {
+        return createConnectionFactory(null);
     }
 
+    /**
+     * Cache reads, routed by {@code redis.read-from}. On a standalone master the
+     * replicas are discovered from its replication info.
+     */
     @Bean
-    public RedisConnectionFactory redisConnectionFactoryBuffer2() {
-        return createConnectionFactory(redisDbBuffer2);
+    public RedisConnectionFactory redisConnectionFactoryReplica() {
+        return createConnectionFactory(ReadFrom.valueOf(redisReadFrom));
     }
 
-    private LettuceConnectionFactory createConnectionFactory(int database) {
-        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(redisHost, redisPort);
-        config.setPassword(RedisPassword.of(redisPassword));
-        config.setDatabase(database);
-        return new LettuceConnectionFactory(config);
+    private LettuceConnectionFactory createConnectionFactory(ReadFrom readFrom) {
+        // Plain commands share one multiplexed connection; the pool only backs
+        // pipelines and transactions, which need a dedicated connection.
+        GenericObjectPoolConfig<StatefulConnection<?, ?>> pool = new GenericObjectPoolConfig<>();
+        pool.setMaxTotal(poolMaxActive);
+        pool.setMaxIdle(poolMaxActive);
+        pool.setMinIdle(poolMinIdle);
+
+        LettucePoolingClientConfiguration.LettucePoolingClientConfigurationBuilder client =
+                LettucePoolingClientConfiguration.builder().poolConfig(pool);
+        if (readFrom != null) {
+            client.readFrom(readFrom);
+        }
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(topology(), client.build());
+        // Buffer pipelined commands and write them in one flush when the pipeline closes
+        factory.setPipeliningFlushPolicy(LettuceConnection.PipeliningFlushPolicy.flushOnClose());
+        return factory;
     }
 
-    @Bean(name = "redisTemplateControl")
-    public RedisTemplate<String, Object> redisTemplateControl() {
-        return createRedisTemplate(redisConnectionFactoryControl());
+    private org.springframework.data.redis.connection.RedisConfiguration topology() {
+        switch (redisTopology.toLowerCase()) {
+            case "cluster" -> {
+                RedisClusterConfiguration config = new RedisClusterConfiguration(redisNodes);
+                config.setPassword(RedisPassword.of(redisPassword));
+                return config;
+            }
+            case "sentinel" -> {
+                RedisSentinelConfiguration config = new RedisSentinelConfiguration(redisSentinelMaster, new HashSet<>(redisNodes));
+                config.setPassword(RedisPassword.of(redisPassword));
+                config.setDatabase(redisDb);
+                return config;
+            }
+            case "standalone" -> {
+                RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(redisHost, redisPort);
+                config.setPassword(RedisPassword.of(redisPassword));
+                config.setDatabase(redisDb);
+                return config;
+            }
+            default -> throw new IllegalArgumentException("Unknown redis.topology: " + redisTopology);
+        }
     }
 
-    @Bean(name = "redisTemplateBuffer1")
-    public RedisTemplate<String, Object> redisTemplateBuffer1() {
-        return createRedisTemplate(redisConnectionFactoryBuffer1());
+    @Bean(name = "redisTemplateCache")
+    public RedisTemplate<String, Object> redisTemplateCache(RedisConnectionFactory factory) {
+        return createRedisTemplate(factory);
     }
 
-    @Bean(name = "redisTemplateBuffer2")
-    public RedisTemplate<String, Object> redisTemplateBuffer2() {
-        return createRedisTemplate(redisConnectionFactoryBuffer2());
+    @Bean(name = "redisTemplateCacheReplica")
+    public RedisTemplate<String, Object> redisTemplateCacheReplica(
+            @Qualifier("redisConnectionFactoryReplica") RedisConnectionFactory factory) {
+        return createRedisTemplate(factory);
     }
 
     private RedisTemplate<String, Object> createRedisTemplate(RedisConnectionFactory factory) {
@@ -80,8 +138,14 @@ public class RedisConfiguration {
     }
 
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(
-            @Qualifier("redisConnectionFactoryControl") RedisConnectionFactory factory) {
+    public RedisMessageListenerContainer cacheEventsListenerContainer(RedisConnectionFactory factory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        return container;
+    }
+
+    @Bean
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory factory) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(factory);
         template.setKeySerializer(new StringRedisSerializer());
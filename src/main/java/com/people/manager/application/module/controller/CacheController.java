@@ -0,0 +1,30 @@
+package com.people.manager.application.module.controller;
+
+import com.people.manager.application.module.model.CacheGenerations;
+import com.people.manager.application.module.service.impl.RedisCacheService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+
+    private final RedisCacheService redisCacheService;
+
+    public CacheController(RedisCacheService redisCacheService) {
+        this.redisCacheService = redisCacheService;
+    }
+
+    @GetMapping("/generations")
+    public ResponseEntity<CacheGenerations> getGenerations() {
+        return ResponseEntity.ok(redisCacheService.getGenerations());
+    }
+
+    @PostMapping("/rollback")
+    public ResponseEntity<CacheGenerations> rollback() {
+        return ResponseEntity.ok(redisCacheService.rollbackGeneration());
+    }
+}
@@ -1,55 +1,315 @@
 package com.people.manager.application.module.controller;
 
-import com.people.manager.application.module.model.Person;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.people.manager.application.module.infra.GeoDistance;
+import com.people.manager.application.module.infra.SearchTerms;
+import com.people.manager.application.module.model.NearbyPerson;
+import com.people.manager.application.module.model.PeopleCount;
+import com.people.manager.application.module.model.PeopleStats;
+import com.people.manager.application.module.model.PersonPage;
+import com.people.manager.application.module.service.CpfBatch;
+import com.people.manager.application.module.service.JsonPage;
+import com.people.manager.application.module.service.PeopleFilter;
+import com.people.manager.application.module.service.PeopleGroup;
+import com.people.manager.application.module.service.PeopleSearch;
 import com.people.manager.application.module.service.impl.PeopleService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/people")
 public class PeopleController {
 
     private final PeopleService peopleService;
+    private final ObjectMapper objectMapper;
+    private final int maxPageLimit;
+    private final int maxAutocompleteLimit;
+    private final int maxCpfBatchSize;
+    private final double maxNearbyRadiusKm;
 
-    public PeopleController(PeopleService peopleService) {
+    public PeopleController(PeopleService peopleService,
+                            ObjectMapper objectMapper,
+                            @Value("${api.page.max-limit:1000}") int maxPageLimit,
+                            @Value("${api.autocomplete.max-limit:50}") int maxAutocompleteLimit,
+                            @Value("${api.cpf-batch.max-size:1000}") int maxCpfBatchSize,
+                            @Value("${api.nearby.max-radius-km:100}") double maxNearbyRadiusKm) {
         this.peopleService = peopleService;
+        this.objectMapper = objectMapper;
+        this.maxPageLimit = maxPageLimit;
+        this.maxAutocompleteLimit = maxAutocompleteLimit;
+        this.maxCpfBatchSize = maxCpfBatchSize;
+        this.maxNearbyRadiusKm = maxNearbyRadiusKm;
     }
 
     @GetMapping
-    public ResponseEntity<List<Person>> getAllPeople() {
-        List<Person> people = peopleService.getAllPeople();
-        return ResponseEntity.ok(people);
+    public ResponseEntity<StreamingResponseBody> getAllPeople(@RequestParam(required = false) Set<String> fields) {
+        return jsonArray(peopleService.getPeopleJson(PeopleFilter.all()), fields);
+    }
+
+    @GetMapping(params = "limit")
+    public ResponseEntity<PersonPage> getAllPeoplePage(@RequestParam(required = false) String cursor,
+                                                       @RequestParam int limit) {
+        return page(PeopleFilter.all(), cursor, limit);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllPeople() {
+        return stream(PeopleFilter.all());
     }
 
     @GetMapping("/cpf/{cpf}")
-    public ResponseEntity<Person> getPersonByCpf(@PathVariable String cpf) {
-        Person person = peopleService.getPersonByCpf(cpf);
+    public ResponseEntity<byte[]> getPersonByCpf(@PathVariable String cpf,
+                                                 @RequestParam(required = false) Set<String> fields) throws IOException {
+        byte[] person = peopleService.getPersonJsonByCpf(cpf);
         if (person == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(person);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(project(person, fields));
+    }
+
+    /**
+     * Up to {@code api.cpf-batch.max-size} CPFs as a JSON array; answers
+     * {@code { "found": [...], "notFound": [...] }}.
+     */
+    @PostMapping("/cpf/batch")
+    public ResponseEntity<StreamingResponseBody> getPeopleByCpfs(@RequestBody List<String> cpfs,
+                                                                 @RequestParam(required = false) Set<String> fields) {
+        if (cpfs.size() > maxCpfBatchSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        CpfBatch batch = peopleService.getPeopleJsonByCpfs(cpfs);
+        StreamingResponseBody body = out -> {
+            out.write("{\"found\":[".getBytes(StandardCharsets.UTF_8));
+            for (int i = 0; i < batch.found().size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write(project(batch.found().get(i), fields));
+            }
+            out.write("],\"notFound\":".getBytes(StandardCharsets.UTF_8));
+            out.write(objectMapper.writeValueAsBytes(batch.notFound()));
+            out.write('}');
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
 
     @GetMapping("/city/{city}")
-    public ResponseEntity<List<Person>> getPeopleByCity(@PathVariable String city) {
-        List<Person> people = peopleService.getPeopleByCity(city);
-        return ResponseEntity.ok(people);
+    public ResponseEntity<StreamingResponseBody> getPeopleByCity(@PathVariable String city,
+                                                                 @RequestParam(required = false) Set<String> fields) {
+        return jsonArray(peopleService.getPeopleJson(PeopleFilter.city(city)), fields);
+    }
+
+    @GetMapping(value = "/city/{city}", params = "limit")
+    public ResponseEntity<PersonPage> getPeopleByCityPage(@PathVariable String city,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam int limit) {
+        return page(PeopleFilter.city(city), cursor, limit);
+    }
+
+    @GetMapping(value = "/city/{city}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPeopleByCity(@PathVariable String city) {
+        return stream(PeopleFilter.city(city));
     }
 
     @GetMapping("/state/{state}")
-    public ResponseEntity<List<Person>> getPeopleByState(@PathVariable String state) {
-        List<Person> people = peopleService.getPeopleByState(state);
-        return ResponseEntity.ok(people);
+    public ResponseEntity<StreamingResponseBody> getPeopleByState(@PathVariable String state,
+                                                                  @RequestParam(required = false) Set<String> fields) {
+        return jsonArray(peopleService.getPeopleJson(PeopleFilter.state(state)), fields);
+    }
+
+    @GetMapping(value = "/state/{state}", params = "limit")
+    public ResponseEntity<PersonPage> getPeopleByStatePage(@PathVariable String state,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam int limit) {
+        return page(PeopleFilter.state(state), cursor, limit);
+    }
+
+    @GetMapping(value = "/state/{state}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPeopleByState(@PathVariable String state) {
+        return stream(PeopleFilter.state(state));
     }
 
     @GetMapping("/country/{country}")
-    public ResponseEntity<List<Person>> getPeopleByCountry(@PathVariable String country) {
-        List<Person> people = peopleService.getPeopleByCountry(country);
-        return ResponseEntity.ok(people);
+    public ResponseEntity<StreamingResponseBody> getPeopleByCountry(@PathVariable String country,
+                                                                    @RequestParam(required = false) Set<String> fields) {
+        return jsonArray(peopleService.getPeopleJson(PeopleFilter.country(country)), fields);
+    }
+
+    @GetMapping(value = "/country/{country}", params = "limit")
+    public ResponseEntity<PersonPage> getPeopleByCountryPage(@PathVariable String country,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam int limit) {
+        return page(PeopleFilter.country(country), cursor, limit);
+    }
+
+    @GetMapping(value = "/country/{country}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPeopleByCountry(@PathVariable String country) {
+        return stream(PeopleFilter.country(country));
+    }
+
+    /**
+     * AND across city/state/country, OR within one: {@code ?city=Recife&city=Olinda&state=PE}.
+     * Paged like the list endpoints; at least one criterion is required.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<StreamingResponseBody> search(@RequestParam(required = false) Set<String> city,
+                                                        @RequestParam(required = false) Set<String> state,
+                                                        @RequestParam(required = false) Set<String> country,
+                                                        @RequestParam(required = false) Set<String> fields,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "100") int limit) {
+        PeopleSearch search = PeopleSearch.of(city, state, country);
+        if (search.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        int boundedLimit = Math.max(1, Math.min(limit, maxPageLimit));
+        return jsonPage(peopleService.searchPeopleJson(search, cursor, boundedLimit), fields);
+    }
+
+    @GetMapping(value = "/search", params = "countOnly=true")
+    public ResponseEntity<PeopleCount> count(@RequestParam(required = false) Set<String> city,
+                                             @RequestParam(required = false) Set<String> state,
+                                             @RequestParam(required = false) Set<String> country) {
+        PeopleSearch search = PeopleSearch.of(city, state, country);
+        if (search.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(new PeopleCount(peopleService.countPeople(search)));
+    }
+
+    /**
+     * People within {@code radiusKm} of a point, nearest first.
+     */
+    @GetMapping("/nearby")
+    public ResponseEntity<List<NearbyPerson>> getPeopleNearby(@RequestParam double lat,
+                                                              @RequestParam double lon,
+                                                              @RequestParam double radiusKm,
+                                                              @RequestParam(defaultValue = "50") int limit) {
+        if (!GeoDistance.indexable(lat, lon) || !(radiusKm > 0) || radiusKm > maxNearbyRadiusKm) {
+            return ResponseEntity.badRequest().build();
+        }
+        int boundedLimit = Math.max(1, Math.min(limit, maxPageLimit));
+        return ResponseEntity.ok(peopleService.getPeopleNearby(lat, lon, radiusKm, boundedLimit));
+    }
+
+    /**
+     * Up to {@code limit} people whose name (or a word of it) or email starts with
+     * {@code q}, ignoring case and accents; whole-word matches first.
+     */
+    @GetMapping("/autocomplete")
+    public ResponseEntity<StreamingResponseBody> autocomplete(@RequestParam String q,
+                                                              @RequestParam(defaultValue = "10") int limit,
+                                                              @RequestParam(required = false) Set<String> fields) {
+        if (SearchTerms.normalize(q).isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        int boundedLimit = Math.max(1, Math.min(limit, maxAutocompleteLimit));
+        return jsonArray(peopleService.autocompletePeopleJson(q, boundedLimit), fields);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<PeopleStats> getStats() {
+        return ResponseEntity.ok(peopleService.getPeopleStats());
+    }
+
+    /**
+     * Counts per value of one group: {@code country}, {@code state}, {@code city} or {@code age}.
+     */
+    @GetMapping("/stats/{group}")
+    public ResponseEntity<Map<String, Long>> getStatsBy(@PathVariable String group) {
+        PeopleGroup peopleGroup;
+        try {
+            peopleGroup = PeopleGroup.of(group);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(peopleService.getPeopleCounts(peopleGroup));
+    }
+
+    private ResponseEntity<PersonPage> page(PeopleFilter filter, String cursor, int limit) {
+        int boundedLimit = Math.max(1, Math.min(limit, maxPageLimit));
+        return ResponseEntity.ok(peopleService.getPeoplePage(filter, cursor, boundedLimit));
+    }
+
+    private ResponseEntity<StreamingResponseBody> jsonArray(List<byte[]> people, Set<String> fields) {
+        StreamingResponseBody body = out -> writeArray(out, people, fields);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    /**
+     * Same shape as {@link PersonPage}, written from the cached JSON.
+     */
+    private ResponseEntity<StreamingResponseBody> jsonPage(JsonPage page, Set<String> fields) {
+        StreamingResponseBody body = out -> {
+            out.write("{\"items\":".getBytes(StandardCharsets.UTF_8));
+            writeArray(out, page.items(), fields);
+            out.write(",\"nextCursor\":".getBytes(StandardCharsets.UTF_8));
+            out.write(objectMapper.writeValueAsBytes(page.nextCursor()));
+            out.write('}');
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    private void writeArray(OutputStream out, List<byte[]> people, Set<String> fields) throws IOException {
+        out.write('[');
+        for (int i = 0; i < people.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(project(people.get(i), fields));
+        }
+        out.write(']');
+    }
+
+    private byte[] project(byte[] person, Set<String> fields) throws IOException {
+        if (fields == null || fields.isEmpty()) {
+            return person;
+        }
+        ObjectNode node = (ObjectNode) objectMapper.readTree(person);
+        node.retain(fields);
+        return objectMapper.writeValueAsBytes(node);
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(PeopleFilter filter) {
+        StreamingResponseBody body = out -> peopleService.streamPeopleJson(filter, chunk -> {
+            try {
+                for (byte[] person : chunk) {
+                    out.write(person);
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 }
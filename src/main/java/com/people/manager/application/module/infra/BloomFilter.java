@@ -0,0 +1,97 @@
+package com.people.manager.application.module.infra;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bloom filter over strings whose bit layout matches a Redis bitmap (bit 0 is the
+ * most significant bit of the first byte), so it can be written with one SET,
+ * patched with SETBIT and read back with one GET.
+ */
+public final class BloomFilter {
+
+    private final byte[] bits;
+    private final long bitSize;
+    private final int hashes;
+
+    private BloomFilter(byte[] bits, long bitSize, int hashes) {
+        this.bits = bits;
+        this.bitSize = bitSize;
+        this.hashes = hashes;
+    }
+
+    /**
+     * Sized for {@code expectedItems} at a false positive rate of {@code fpp}.
+     */
+    public static BloomFilter create(long expectedItems, double fpp) {
+        long n = Math.max(1, expectedItems);
+        long bitSize = Math.max(64, (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+        int hashes = Math.max(1, (int) Math.round((double) bitSize / n * Math.log(2)));
+        return new BloomFilter(new byte[(int) ((bitSize + 7) / 8)], bitSize, hashes);
+    }
+
+    /**
+     * Wraps a bitmap read from Redis. Trailing bytes Redis never allocated
+     * because no bit there was set are treated as zero.
+     */
+    public static BloomFilter of(byte[] bitmap, long bitSize, int hashes) {
+        byte[] bits = new byte[(int) ((bitSize + 7) / 8)];
+        System.arraycopy(bitmap, 0, bits, 0, Math.min(bitmap.length, bits.length));
+        return new BloomFilter(bits, bitSize, hashes);
+    }
+
+    public void add(String item) {
+        for (long position : positions(item, bitSize, hashes)) {
+            bits[(int) (position >>> 3)] |= (byte) (0x80 >>> (position & 7));
+        }
+    }
+
+    public boolean mightContain(String item) {
+        for (long position : positions(item, bitSize, hashes)) {
+            if ((bits[(int) (position >>> 3)] & (0x80 >>> (position & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Bit offsets of {@code item}, by double hashing a 64-bit FNV-1a hash.
+     */
+    public static long[] positions(String item, long bitSize, int hashes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : item.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash = mix(hash);
+        long h1 = hash >>> 32;
+        long h2 = (hash & 0xffffffffL) | 1;
+
+        long[] positions = new long[hashes];
+        for (int i = 0; i < hashes; i++) {
+            positions[i] = Math.floorMod(h1 + i * h2, bitSize);
+        }
+        return positions;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public byte[] toByteArray() {
+        return bits;
+    }
+
+    public long bitSize() {
+        return bitSize;
+    }
+
+    public int hashes() {
+        return hashes;
+    }
+}
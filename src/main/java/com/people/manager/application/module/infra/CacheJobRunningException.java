@@ -0,0 +1,12 @@
+package com.people.manager.application.module.infra;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.CONFLICT, reason = "A cache job is running, retry when it finishes")
+public class CacheJobRunningException extends RuntimeException {
+
+    public CacheJobRunningException() {
+        super("The cache lease is held by a running rebuild or delta refresh");
+    }
+}
@@ -3,9 +3,26 @@ package com.people.manager.application.module.infra;
 public final class CacheKeys {
 
     public static final String ALL = "all_people";
+    public static final String PERSON_KEYS = "person_keys";
+    public static final String INDEXES = "indexes";
+    public static final String WATERMARK = "watermark";
+    public static final String BLOOM = "bloom";
+    public static final String BLOOM_META = "bloom_meta";
+    public static final String BLOOM_LOG = "bloom_log";
+    public static final String GEO = "people_geo";
+    public static final String PREFIXES = "people_prefixes";
+    public static final String FENCE = "fence";
+
+    /**
+     * Prefix of every key written by one cache build. The hash tag pins a whole
+     * generation to a single cluster slot, so scripts and multi-key commands can span it.
+     */
+    public static String generation(long generation) {
+        return "gen:{" + generation + "}:";
+    }
 
-    public static String byCpf(String cpf) {
-        return "person_by_cpf_" + cpf;
+    public static String personByCpf(String cpf) {
+        return "person_cpf_" + cpf;
     }
 
     public static String byCity(String city) {
@@ -20,8 +37,11 @@ public final class CacheKeys {
         return "people_by_country_" + country;
     }
 
+    public static String countsBy(String group) {
+        return "counts_by_" + group;
+    }
+
     public static String personKey(Long id, String cpf) {
-        return "person_" + id + "_" + cpf;
+        return cpf != null ? personByCpf(cpf) : "person_id_" + id;
     }
 }
-
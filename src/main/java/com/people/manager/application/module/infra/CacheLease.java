@@ -0,0 +1,74 @@
+package com.people.manager.application.module.infra;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Redis lease that lets a single node run the cache jobs at a time. Each lease
+ * carries a fencing token from an ever-increasing counter; the holder renews
+ * it while working, and a crashed holder simply lets it expire.
+ */
+@Component
+public class CacheLease {
+
+    public static final String KEY = "{cache}:lease";
+    private static final String FENCE_KEY = "{cache}:fence";
+    private static final RedisScript<Long> RENEW_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/lease-renew.lua"), Long.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/lease-release.lua"), Long.class);
+
+    private final RedisTemplate<String, Object> cacheTemplate;
+    private final Duration ttl;
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+
+    public CacheLease(@Qualifier("redisTemplateCache") RedisTemplate<String, Object> cacheTemplate,
+                      @Value("${cache.lease.ttl-ms:60000}") long ttlMs) {
+        this.cacheTemplate = cacheTemplate;
+        this.ttl = Duration.ofMillis(ttlMs);
+    }
+
+    public Optional<Lease> tryAcquire() {
+        long token = Objects.requireNonNull(cacheTemplate.opsForValue().increment(FENCE_KEY));
+        Lease lease = new Lease(token, token + "@" + owner);
+        Boolean acquired = cacheTemplate.opsForValue().setIfAbsent(KEY, lease.value(), ttl);
+        return Boolean.TRUE.equals(acquired) ? Optional.of(lease) : Optional.empty();
+    }
+
+    /**
+     * Whether the lease is currently held by a job of this node.
+     */
+    public boolean heldByThisNode() {
+        Object value = cacheTemplate.opsForValue().get(KEY);
+        return value != null && value.toString().endsWith("@" + owner);
+    }
+
+    public void renew(Lease lease) {
+        Long renewed = cacheTemplate.execute(RENEW_SCRIPT, List.of(KEY), lease.value(), String.valueOf(ttl.toMillis()));
+        if (renewed == null || renewed == 0) {
+            throw new LeaseLostException(lease);
+        }
+    }
+
+    public void release(Lease lease) {
+        cacheTemplate.execute(RELEASE_SCRIPT, List.of(KEY), lease.value());
+    }
+
+    /**
+     * @param value what is stored under {@link #KEY} while the lease is held;
+     *              scripts compare it to fence writes made on behalf of the lease
+     */
+    public record Lease(long token, String value) {
+    }
+}
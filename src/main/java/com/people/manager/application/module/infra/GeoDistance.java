@@ -0,0 +1,31 @@
+package com.people.manager.application.module.infra;
+
+/**
+ * Great-circle distances with the same earth radius Redis uses for its GEO
+ * commands, so the database fallback ranks people exactly like GEOSEARCH does.
+ */
+public final class GeoDistance {
+
+    /**
+     * Latitudes beyond this cannot be stored in or searched from a Redis GEO set.
+     */
+    public static final double MAX_LATITUDE = 85.05112878;
+
+    private static final double EARTH_RADIUS_KM = 6372.797560856;
+
+    private GeoDistance() {
+    }
+
+    public static boolean indexable(Double latitude, Double longitude) {
+        return latitude != null && longitude != null
+                && Math.abs(latitude) <= MAX_LATITUDE && Math.abs(longitude) <= 180;
+    }
+
+    public static double km(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+}
@@ -0,0 +1,12 @@
+package com.people.manager.application.module.infra;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Cursor is invalid or has expired")
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String cursor) {
+        super("Invalid or expired cursor: " + cursor);
+    }
+}
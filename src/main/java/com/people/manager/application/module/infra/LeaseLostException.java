@@ -0,0 +1,8 @@
+package com.people.manager.application.module.infra;
+
+public class LeaseLostException extends RuntimeException {
+
+    public LeaseLostException(CacheLease.Lease lease) {
+        super("Cache lease " + lease.token() + " is no longer held by this node");
+    }
+}
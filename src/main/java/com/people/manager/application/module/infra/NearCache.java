@@ -0,0 +1,68 @@
+package com.people.manager.application.module.infra;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded on-heap cache in front of Redis. Entries are keyed by cache version,
+ * so advancing the version makes every older entry unreachable at once.
+ */
+@Component
+public class NearCache {
+
+    private final Cache<String, Object> cache;
+    private final AtomicLong version = new AtomicLong();
+
+    public NearCache(MeterRegistry meterRegistry,
+                     @Value("${cache.l1.max-weight:100000}") long maxWeight) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String key, Object value) ->
+                        value instanceof Collection<?> c ? Math.max(1, c.size()) : 1)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "people.l1");
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> loader) {
+        String versionKey = version.get() + ":" + key;
+        Object cached = cache.getIfPresent(versionKey);
+        if (cached != null) {
+            return (T) cached;
+        }
+
+        T value = loader.get();
+        if (value != null) {
+            cache.put(versionKey, value);
+        }
+        return value;
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Only ever moves forward: pointer updates from pub/sub and polling can arrive
+     * out of order, and going back would make entries loaded from an older
+     * generation reachable again. A rollback gets a new, higher version too.
+     */
+    public void advanceTo(long newVersion) {
+        long current;
+        while (newVersion > (current = version.get())) {
+            if (version.compareAndSet(current, newVersion)) {
+                cache.invalidateAll();
+                return;
+            }
+        }
+    }
+}
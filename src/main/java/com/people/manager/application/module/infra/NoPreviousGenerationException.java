@@ -0,0 +1,12 @@
+package com.people.manager.application.module.infra;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.CONFLICT, reason = "No previous cache generation to roll back to")
+public class NoPreviousGenerationException extends RuntimeException {
+
+    public NoPreviousGenerationException() {
+        super("No previous cache generation is retained");
+    }
+}
@@ -0,0 +1,54 @@
+package com.people.manager.application.module.infra;
+
+import com.people.manager.application.module.model.Person;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Terms of the autocomplete index. Text is decomposed, stripped of accents and
+ * lowercased, so "João" is found by "joao" and "JOÃO" alike. A name is indexed
+ * from each of its words ("maria da silva", "da silva", "silva"), so a surname
+ * matches too; an email is indexed whole.
+ */
+public final class SearchTerms {
+
+    /**
+     * Longer terms are cut: a prefix this long already identifies a person.
+     */
+    public static final int MAX_TERM_LENGTH = 64;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("[\\s\\p{Cc}]+");
+
+    private SearchTerms() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String plain = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        String term = SPACES.matcher(plain.toLowerCase(Locale.ROOT)).replaceAll(" ").strip();
+        return term.length() > MAX_TERM_LENGTH ? term.substring(0, MAX_TERM_LENGTH).strip() : term;
+    }
+
+    public static Set<String> of(Person person) {
+        Set<String> terms = new LinkedHashSet<>();
+        String name = normalize(person.getName());
+        if (!name.isEmpty()) {
+            terms.add(name);
+            for (int space = name.indexOf(' '); space >= 0; space = name.indexOf(' ', space + 1)) {
+                terms.add(name.substring(space + 1));
+            }
+        }
+        String email = normalize(person.getEmail());
+        if (!email.isEmpty()) {
+            terms.add(email);
+        }
+        return terms;
+    }
+}
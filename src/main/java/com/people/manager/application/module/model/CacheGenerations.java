@@ -0,0 +1,6 @@
+package com.people.manager.application.module.model;
+
+import java.util.List;
+
+public record CacheGenerations(long live, List<Long> retained) {
+}
@@ -0,0 +1,7 @@
+package com.people.manager.application.module.model;
+
+/**
+ * One row of a {@code group by} count query.
+ */
+public record GroupCount<T>(T value, long count) {
+}
@@ -0,0 +1,4 @@
+package com.people.manager.application.module.model;
+
+public record PeopleCount(long count) {
+}
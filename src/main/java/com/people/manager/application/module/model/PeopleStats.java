@@ -0,0 +1,11 @@
+package com.people.manager.application.module.model;
+
+import java.util.Map;
+
+public record PeopleStats(
+        long total,
+        Map<String, Long> byCountry,
+        Map<String, Long> byState,
+        Map<String, Long> byCity,
+        Map<String, Long> byAge) {
+}
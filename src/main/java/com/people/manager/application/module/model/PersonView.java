@@ -0,0 +1,43 @@
+package com.people.manager.application.module.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Flat, read-only row of a person and its address, selected with a JPQL
+ * constructor expression: no managed entities, proxies or dirty-checking
+ * snapshots are created for it.
+ */
+public record PersonView(
+        Long id,
+        String name,
+        String cpf,
+        LocalDate birthDate,
+        String phoneNumber,
+        String email,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        Long addressId,
+        String country,
+        String city,
+        String state,
+        String district,
+        String street,
+        String addressDetail,
+        Double latitude,
+        Double longitude,
+        LocalDateTime addressCreatedAt,
+        LocalDateTime addressUpdatedAt) {
+
+    /**
+     * Detached {@link Person} with the same shape the entity graph loads.
+     */
+    public Person toPerson() {
+        Person person = new Person(id, name, cpf, birthDate, phoneNumber, email, createdAt, updatedAt, null);
+        if (addressId != null) {
+            person.setAddress(new Address(addressId, person, country, city, state, district, street, addressDetail,
+                    latitude, longitude, addressCreatedAt, addressUpdatedAt));
+        }
+        return person;
+    }
+}
@@ -1,19 +1,129 @@
 package com.people.manager.application.module.repository;
 
+import com.people.manager.application.module.model.GroupCount;
 import com.people.manager.application.module.model.Person;
+import com.people.manager.application.module.model.PersonView;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PersonRepository extends JpaRepository<Person, Long> {
+
+    String SELECT_PERSON_VIEW = "select new com.people.manager.application.module.model.PersonView(" +
+            "p.id, p.name, p.cpf, p.birthDate, p.phoneNumber, p.email, p.createdAt, p.updatedAt, " +
+            "a.id, a.country, a.city, a.state, a.district, a.street, a.addressDetail, a.latitude, a.longitude, " +
+            "a.createdAt, a.updatedAt) from Person p left join p.address a ";
+
+    String SEARCH_FILTER = "(:anyCity = true or a.city in :cities) " +
+            "and (:anyState = true or a.state in :states) " +
+            "and (:anyCountry = true or a.country in :countries)";
+
+    // Person.address is the inverse side of a one-to-one, which Hibernate cannot
+    // lazy-load: every finder fetches it in the same statement.
+    @Override
+    @EntityGraph(attributePaths = "address")
+    List<Person> findAll();
+
+    @EntityGraph(attributePaths = "address")
     Optional<Person> findByCpf(String cpf);
 
+    @EntityGraph(attributePaths = "address")
+    List<Person> findByCpfIn(Collection<String> cpfs);
+
+    @EntityGraph(attributePaths = "address")
     List<Person> findByAddressCity(String city);
 
+    @EntityGraph(attributePaths = "address")
     List<Person> findByAddressState(String state);
 
+    @EntityGraph(attributePaths = "address")
     List<Person> findByAddressCountry(String country);
+
+    @Query("select p from Person p left join fetch p.address where p.id > :afterId order by p.id")
+    List<Person> findChunkAfter(@Param("afterId") long afterId, Limit limit);
+
+    @Query("select p from Person p join fetch p.address a where a.city = :city and p.id > :afterId order by p.id")
+    List<Person> findCityChunkAfter(@Param("city") String city, @Param("afterId") long afterId, Limit limit);
+
+    @Query("select p from Person p join fetch p.address a where a.state = :state and p.id > :afterId order by p.id")
+    List<Person> findStateChunkAfter(@Param("state") String state, @Param("afterId") long afterId, Limit limit);
+
+    @Query("select p from Person p join fetch p.address a where a.country = :country and p.id > :afterId order by p.id")
+    List<Person> findCountryChunkAfter(@Param("country") String country, @Param("afterId") long afterId, Limit limit);
+
+    @Query(SELECT_PERSON_VIEW + "where p.id > :afterId and p.id <= :toId order by p.id")
+    List<PersonView> findViewChunkBetween(@Param("afterId") long afterId, @Param("toId") long toId, Limit limit);
+
+    @Query(SELECT_PERSON_VIEW + "where (p.updatedAt > :since or a.updatedAt > :since) and p.id > :afterId order by p.id")
+    List<PersonView> findChangedViewChunkAfter(@Param("since") LocalDateTime since,
+                                               @Param("afterId") long afterId,
+                                               Limit limit);
+
+    // A field with no values is passed as any = true (with a placeholder list)
+    // rather than as an empty IN list.
+    @Query("select p from Person p join fetch p.address a where " + SEARCH_FILTER + " and p.id > :afterId order by p.id")
+    List<Person> searchChunkAfter(@Param("anyCity") boolean anyCity, @Param("cities") Collection<String> cities,
+                                  @Param("anyState") boolean anyState, @Param("states") Collection<String> states,
+                                  @Param("anyCountry") boolean anyCountry, @Param("countries") Collection<String> countries,
+                                  @Param("afterId") long afterId, Limit limit);
+
+    @Query("select count(p) from Person p join p.address a where " + SEARCH_FILTER)
+    long countSearch(@Param("anyCity") boolean anyCity, @Param("cities") Collection<String> cities,
+                     @Param("anyState") boolean anyState, @Param("states") Collection<String> states,
+                     @Param("anyCountry") boolean anyCountry, @Param("countries") Collection<String> countries);
+
+    @Query("select new com.people.manager.application.module.model.GroupCount(a.country, count(p)) " +
+            "from Person p join p.address a group by a.country")
+    List<GroupCount<String>> countByCountry();
+
+    @Query("select new com.people.manager.application.module.model.GroupCount(a.state, count(p)) " +
+            "from Person p join p.address a group by a.state")
+    List<GroupCount<String>> countByState();
+
+    @Query("select new com.people.manager.application.module.model.GroupCount(a.city, count(p)) " +
+            "from Person p join p.address a group by a.city")
+    List<GroupCount<String>> countByCity();
+
+    @Query("select new com.people.manager.application.module.model.GroupCount(p.birthDate, count(p)) " +
+            "from Person p group by p.birthDate")
+    List<GroupCount<LocalDate>> countByBirthDate();
+
+    // Ordered by the flat-earth distance to (lat, lon), longitudes scaled by cos(lat)
+    @Query("select p from Person p join fetch p.address a " +
+            "where a.latitude between :minLat and :maxLat and a.longitude between :minLon and :maxLon " +
+            "order by (a.latitude - :lat) * (a.latitude - :lat) " +
+            "+ (a.longitude - :lon) * (a.longitude - :lon) * :lonScale * :lonScale")
+    List<Person> findInBox(@Param("minLat") double minLat, @Param("maxLat") double maxLat,
+                           @Param("minLon") double minLon, @Param("maxLon") double maxLon,
+                           @Param("lat") double lat, @Param("lon") double lon,
+                           @Param("lonScale") double lonScale, Limit limit);
+
+    // Patterns are built by the caller, already lowercased and escaped with '\'
+    @EntityGraph(attributePaths = "address")
+    @Query("select p from Person p where lower(p.name) like :prefix escape '\\' " +
+            "or lower(p.name) like :wordPrefix escape '\\' or lower(p.email) like :prefix escape '\\' " +
+            "order by p.name, p.id")
+    List<Person> findByNameOrEmailLike(@Param("prefix") String prefix, @Param("wordPrefix") String wordPrefix, Limit limit);
+
+    @Query("select min(p.id) from Person p")
+    Long findMinId();
+
+    @Query("select max(p.id) from Person p")
+    Long findMaxId();
+
+    @Query("select max(p.updatedAt) from Person p")
+    LocalDateTime findMaxPersonUpdatedAt();
+
+    @Query("select max(a.updatedAt) from Address a")
+    LocalDateTime findMaxAddressUpdatedAt();
 }
@@ -0,0 +1,10 @@
+package com.people.manager.application.module.service;
+
+import java.util.List;
+
+/**
+ * Result of a batch CPF lookup: the JSON of every person found, in request
+ * order, and the CPFs that matched no one.
+ */
+public record CpfBatch(List<byte[]> found, List<String> notFound) {
+}
@@ -0,0 +1,9 @@
+package com.people.manager.application.module.service;
+
+import java.util.List;
+
+/**
+ * One page of people as JSON, with the cursor of the next page or null at the end.
+ */
+public record JsonPage(List<byte[]> items, String nextCursor) {
+}
@@ -1,13 +1,24 @@
 package com.people.manager.application.module.service;
 
+import com.people.manager.application.module.model.NearbyPerson;
 import com.people.manager.application.module.model.Person;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface PeopleDataProvider {
     List<Person> findAll();
     Person findByCpf(String cpf);
+    List<Person> findByCpfs(Collection<String> cpfs);
     List<Person> findByCity(String city);
     List<Person> findByState(String state);
     List<Person> findByCountry(String country);
+    List<Person> findPageAfter(PeopleFilter filter, long afterId, int limit);
+    List<Person> searchPageAfter(PeopleSearch search, long afterId, int limit);
+    long count(PeopleSearch search);
+    long countAll();
+    Map<String, Long> countBy(PeopleGroup group);
+    List<NearbyPerson> findNearby(double latitude, double longitude, double radiusKm, int limit);
+    List<Person> autocomplete(String term, int limit);
 }
@@ -0,0 +1,33 @@
+package com.people.manager.application.module.service;
+
+import com.people.manager.application.module.infra.CacheKeys;
+
+public record PeopleFilter(Field field, String value) {
+
+    public enum Field { ALL, CITY, STATE, COUNTRY }
+
+    public static PeopleFilter all() {
+        return new PeopleFilter(Field.ALL, null);
+    }
+
+    public static PeopleFilter city(String city) {
+        return new PeopleFilter(Field.CITY, city);
+    }
+
+    public static PeopleFilter state(String state) {
+        return new PeopleFilter(Field.STATE, state);
+    }
+
+    public static PeopleFilter country(String country) {
+        return new PeopleFilter(Field.COUNTRY, country);
+    }
+
+    public String indexKey() {
+        return switch (field) {
+            case ALL -> CacheKeys.ALL;
+            case CITY -> CacheKeys.byCity(value);
+            case STATE -> CacheKeys.byState(value);
+            case COUNTRY -> CacheKeys.byCountry(value);
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package com.people.manager.application.module.service;
+
+import com.people.manager.application.module.infra.CacheKeys;
+import com.people.manager.application.module.model.Address;
+import com.people.manager.application.module.model.Person;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Locale;
+
+/**
+ * Dimensions people are counted by. Each generation holds one hash of value to
+ * count per group, filled by the rebuild and adjusted by the delta refresh.
+ */
+public enum PeopleGroup {
+    COUNTRY, STATE, CITY, AGE;
+
+    private static final int[] AGE_LOWER_BOUNDS = {0, 18, 25, 35, 45, 55, 65};
+    private static final String[] AGE_BUCKETS = {"0-17", "18-24", "25-34", "35-44", "45-54", "55-64", "65+"};
+
+    /**
+     * Case-insensitive lookup; throws {@link IllegalArgumentException} for an unknown group.
+     */
+    public static PeopleGroup of(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+    public String countsKey() {
+        return CacheKeys.countsBy(name().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * What {@code person} is counted under in this group, or null when it has no value.
+     */
+    public String groupOf(Person person, LocalDate today) {
+        if (this == AGE) {
+            return person.getBirthDate() == null ? null : ageBucket(person.getBirthDate(), today);
+        }
+        Address address = person.getAddress();
+        if (address == null) {
+            return null;
+        }
+        return switch (this) {
+            case COUNTRY -> address.getCountry();
+            case STATE -> address.getState();
+            default -> address.getCity();
+        };
+    }
+
+    public static String ageBucket(LocalDate birthDate, LocalDate today) {
+        int age = Period.between(birthDate, today).getYears();
+        for (int i = AGE_LOWER_BOUNDS.length - 1; i > 0; i--) {
+            if (age >= AGE_LOWER_BOUNDS[i]) {
+                return AGE_BUCKETS[i];
+            }
+        }
+        return AGE_BUCKETS[0];
+    }
+}
@@ -1,8 +1,13 @@
 package com.people.manager.application.module.service;
 
+import com.people.manager.application.module.model.NearbyPerson;
 import com.people.manager.application.module.model.Person;
+import com.people.manager.application.module.model.PersonPage;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface PeopleQuery {
     List<Person> findAll();
@@ -10,4 +15,15 @@ public interface PeopleQuery {
     List<Person> findByCity(String city);
     List<Person> findByState(String state);
     List<Person> findByCountry(String country);
+    PersonPage findPage(PeopleFilter filter, String cursor, int limit);
+    List<byte[]> findJson(PeopleFilter filter);
+    byte[] findJsonByCpf(String cpf);
+    CpfBatch findJsonByCpfs(Collection<String> cpfs);
+    void streamJson(PeopleFilter filter, Consumer<List<byte[]>> sink);
+    JsonPage searchJson(PeopleSearch search, String cursor, int limit);
+    long count(PeopleSearch search);
+    long countAll();
+    Map<String, Long> countBy(PeopleGroup group);
+    List<NearbyPerson> findNearby(double latitude, double longitude, double radiusKm, int limit);
+    List<byte[]> autocompleteJson(String prefix, int limit);
 }
@@ -0,0 +1,73 @@
+package com.people.manager.application.module.service;
+
+import com.people.manager.application.module.infra.CacheKeys;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Compound filter: a person matches when, for every field given, their address
+ * has one of its values. No field at all matches everyone.
+ */
+public record PeopleSearch(SortedSet<String> cities, SortedSet<String> states, SortedSet<String> countries) {
+
+    public PeopleSearch {
+        cities = normalize(cities);
+        states = normalize(states);
+        countries = normalize(countries);
+    }
+
+    public static PeopleSearch of(Collection<String> cities, Collection<String> states, Collection<String> countries) {
+        return new PeopleSearch(sorted(cities), sorted(states), sorted(countries));
+    }
+
+    public boolean isEmpty() {
+        return cities.isEmpty() && states.isEmpty() && countries.isEmpty();
+    }
+
+    /**
+     * Index keys to intersect, one group per field given; keys within a group are unioned.
+     */
+    public List<List<String>> indexGroups() {
+        List<List<String>> groups = new ArrayList<>(3);
+        addGroup(groups, cities, CacheKeys::byCity);
+        addGroup(groups, states, CacheKeys::byState);
+        addGroup(groups, countries, CacheKeys::byCountry);
+        if (groups.isEmpty()) {
+            groups.add(List.of(CacheKeys.ALL));
+        }
+        return groups;
+    }
+
+    /**
+     * Same for any order or repetition of the values.
+     */
+    public String cacheKey() {
+        return "search:" + indexGroups();
+    }
+
+    private static void addGroup(List<List<String>> groups, Set<String> values, Function<String, String> key) {
+        if (!values.isEmpty()) {
+            groups.add(values.stream().map(key).toList());
+        }
+    }
+
+    private static SortedSet<String> sorted(Collection<String> values) {
+        return values == null ? null : new TreeSet<>(values);
+    }
+
+    private static SortedSet<String> normalize(SortedSet<String> values) {
+        if (values == null) {
+            return Collections.emptySortedSet();
+        }
+        TreeSet<String> normalized = new TreeSet<>();
+        values.stream().filter(v -> v != null && !v.isBlank()).forEach(normalized::add);
+        return Collections.unmodifiableSortedSet(normalized);
+    }
+}
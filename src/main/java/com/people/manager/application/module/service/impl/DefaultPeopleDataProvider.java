@@ -1,15 +1,35 @@
 package com.people.manager.application.module.service.impl;
 
+import com.people.manager.application.module.infra.GeoDistance;
+import com.people.manager.application.module.model.NearbyPerson;
 import com.people.manager.application.module.model.Person;
 import com.people.manager.application.module.repository.PersonRepository;
 import com.people.manager.application.module.service.PeopleDataProvider;
+import com.people.manager.application.module.service.PeopleFilter;
+import com.people.manager.application.module.service.PeopleGroup;
+import com.people.manager.application.module.service.PeopleSearch;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
+/**
+ * Database reads behind the cache. Read-only transactions load entities without
+ * dirty-checking snapshots and never flush.
+ */
 @Service
+@Transactional(readOnly = true)
 public class DefaultPeopleDataProvider implements PeopleDataProvider {
 
+    private static final double KM_PER_DEGREE = 111.32;
+    private static final int NEARBY_CANDIDATES_PER_RESULT = 2;
+
     private final PersonRepository repository;
 
     public DefaultPeopleDataProvider(PersonRepository repository) {
@@ -26,6 +46,11 @@ public class DefaultPeopleDataProvider implements PeopleDataProvider {
         return repository.findByCpf(cpf).orElse(null);
     }
 
+    @Override
+    public List<Person> findByCpfs(Collection<String> cpfs) {
+        return cpfs.isEmpty() ? List.of() : repository.findByCpfIn(cpfs);
+    }
+
     @Override
     public List<Person> findByCity(String city) {
         return repository.findByAddressCity(city);
@@ -40,4 +65,93 @@ public class DefaultPeopleDataProvider implements PeopleDataProvider {
     public List<Person> findByCountry(String country) {
         return repository.findByAddressCountry(country);
     }
+
+    @Override
+    public List<Person> findPageAfter(PeopleFilter filter, long afterId, int limit) {
+        return switch (filter.field()) {
+            case ALL -> repository.findChunkAfter(afterId, Limit.of(limit));
+            case CITY -> repository.findCityChunkAfter(filter.value(), afterId, Limit.of(limit));
+            case STATE -> repository.findStateChunkAfter(filter.value(), afterId, Limit.of(limit));
+            case COUNTRY -> repository.findCountryChunkAfter(filter.value(), afterId, Limit.of(limit));
+        };
+    }
+
+    @Override
+    public List<Person> searchPageAfter(PeopleSearch search, long afterId, int limit) {
+        if (search.isEmpty()) {
+            return repository.findChunkAfter(afterId, Limit.of(limit));
+        }
+        return repository.searchChunkAfter(
+                search.cities().isEmpty(), orAny(search.cities()),
+                search.states().isEmpty(), orAny(search.states()),
+                search.countries().isEmpty(), orAny(search.countries()),
+                afterId, Limit.of(limit));
+    }
+
+    @Override
+    public long count(PeopleSearch search) {
+        if (search.isEmpty()) {
+            return repository.count();
+        }
+        return repository.countSearch(
+                search.cities().isEmpty(), orAny(search.cities()),
+                search.states().isEmpty(), orAny(search.states()),
+                search.countries().isEmpty(), orAny(search.countries()));
+    }
+
+    @Override
+    public long countAll() {
+        return repository.count();
+    }
+
+    @Override
+    public Map<String, Long> countBy(PeopleGroup group) {
+        Map<String, Long> counts = new TreeMap<>();
+        switch (group) {
+            case COUNTRY -> repository.countByCountry().forEach(row -> counts.put(row.value(), row.count()));
+            case STATE -> repository.countByState().forEach(row -> counts.put(row.value(), row.count()));
+            case CITY -> repository.countByCity().forEach(row -> counts.put(row.value(), row.count()));
+            case AGE -> {
+                LocalDate today = LocalDate.now();
+                repository.countByBirthDate().forEach(row ->
+                        counts.merge(PeopleGroup.ageBucket(row.value(), today), row.count(), Long::sum));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Bounding-box query on the indexed coordinates, nearest first by a flat-earth
+     * approximation and capped at a few times {@code limit}, then exact distances
+     * in memory. The box is clamped rather than wrapped at the poles and the antimeridian.
+     */
+    @Override
+    public List<NearbyPerson> findNearby(double latitude, double longitude, double radiusKm, int limit) {
+        double lonScale = Math.max(Math.cos(Math.toRadians(latitude)), 0.01);
+        double latDelta = radiusKm / KM_PER_DEGREE;
+        double lonDelta = radiusKm / (KM_PER_DEGREE * lonScale);
+        return repository.findInBox(latitude - latDelta, latitude + latDelta,
+                        Math.max(-180, longitude - lonDelta), Math.min(180, longitude + lonDelta),
+                        latitude, longitude, lonScale, Limit.of(limit * NEARBY_CANDIDATES_PER_RESULT)).stream()
+                .map(person -> new NearbyPerson(GeoDistance.km(latitude, longitude,
+                        person.getAddress().getLatitude(), person.getAddress().getLongitude()), person))
+                .filter(nearby -> nearby.distanceKm() <= radiusKm)
+                .sorted(Comparator.comparingDouble(NearbyPerson::distanceKm))
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Names starting with, or with a word starting with, {@code term}, and emails
+     * starting with it. Case-insensitive, but unlike the cached index not accent-insensitive.
+     */
+    @Override
+    public List<Person> autocomplete(String term, int limit) {
+        String escaped = term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return repository.findByNameOrEmailLike(escaped + "%", "% " + escaped + "%", Limit.of(limit));
+    }
+
+    private static Collection<String> orAny(Collection<String> values) {
+        return values.isEmpty() ? List.of("") : values;
+    }
 }
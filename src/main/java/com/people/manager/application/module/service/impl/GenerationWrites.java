@@ -0,0 +1,196 @@
+package com.people.manager.application.module.service.impl;
+
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.zset.Tuple;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The writes that put people into a generation. The rebuild sends them straight
+ * down a pipelined connection; the delta refresh records them and applies each
+ * batch with {@code fenced-write.lua}, so a node that lost its lease cannot
+ * write over a newer holder's patches.
+ */
+interface GenerationWrites {
+
+    void set(byte[] key, byte[] value);
+
+    void del(byte[] key);
+
+    void hSet(byte[] key, byte[] field, byte[] value);
+
+    void hIncrBy(byte[] key, byte[] field, long delta);
+
+    void sAdd(byte[] key, byte[]... members);
+
+    void sRem(byte[] key, byte[]... members);
+
+    /**
+     * Adds members with score 0, for lexicographic ranges.
+     */
+    void zAdd(byte[] key, byte[]... members);
+
+    void zRem(byte[] key, byte[]... members);
+
+    void geoAdd(byte[] key, double longitude, double latitude, byte[] member);
+
+    void setBit(byte[] key, long offset);
+
+    void rPush(byte[] key, byte[]... values);
+
+    static GenerationWrites to(RedisConnection connection) {
+        return new GenerationWrites() {
+            @Override
+            public void set(byte[] key, byte[] value) {
+                connection.stringCommands().set(key, value);
+            }
+
+            @Override
+            public void del(byte[] key) {
+                connection.keyCommands().del(key);
+            }
+
+            @Override
+            public void hSet(byte[] key, byte[] field, byte[] value) {
+                connection.hashCommands().hSet(key, field, value);
+            }
+
+            @Override
+            public void hIncrBy(byte[] key, byte[] field, long delta) {
+                connection.hashCommands().hIncrBy(key, field, delta);
+            }
+
+            @Override
+            public void sAdd(byte[] key, byte[]... members) {
+                connection.setCommands().sAdd(key, members);
+            }
+
+            @Override
+            public void sRem(byte[] key, byte[]... members) {
+                connection.setCommands().sRem(key, members);
+            }
+
+            @Override
+            public void zAdd(byte[] key, byte[]... members) {
+                Set<Tuple> tuples = new LinkedHashSet<>();
+                for (byte[] member : members) {
+                    tuples.add(Tuple.of(member, 0d));
+                }
+                connection.zSetCommands().zAdd(key, tuples);
+            }
+
+            @Override
+            public void zRem(byte[] key, byte[]... members) {
+                connection.zSetCommands().zRem(key, members);
+            }
+
+            @Override
+            public void geoAdd(byte[] key, double longitude, double latitude, byte[] member) {
+                connection.geoCommands().geoAdd(key, new Point(longitude, latitude), member);
+            }
+
+            @Override
+            public void setBit(byte[] key, long offset) {
+                connection.stringCommands().setBit(key, offset, true);
+            }
+
+            @Override
+            public void rPush(byte[] key, byte[]... values) {
+                connection.listCommands().rPush(key, values);
+            }
+        };
+    }
+
+    /**
+     * Commands flattened into script arguments: each one as its argument count,
+     * its name and its arguments.
+     */
+    final class Recorded implements GenerationWrites {
+        private final List<byte[]> arguments = new ArrayList<>();
+
+        List<byte[]> arguments() {
+            return arguments;
+        }
+
+        boolean isEmpty() {
+            return arguments.isEmpty();
+        }
+
+        @Override
+        public void set(byte[] key, byte[] value) {
+            command("SET", key, value);
+        }
+
+        @Override
+        public void del(byte[] key) {
+            command("DEL", key);
+        }
+
+        @Override
+        public void hSet(byte[] key, byte[] field, byte[] value) {
+            command("HSET", key, field, value);
+        }
+
+        @Override
+        public void hIncrBy(byte[] key, byte[] field, long delta) {
+            command("HINCRBY", key, field, bytes(delta));
+        }
+
+        @Override
+        public void sAdd(byte[] key, byte[]... members) {
+            command("SADD", key, members);
+        }
+
+        @Override
+        public void sRem(byte[] key, byte[]... members) {
+            command("SREM", key, members);
+        }
+
+        @Override
+        public void zAdd(byte[] key, byte[]... members) {
+            byte[][] scored = new byte[members.length * 2][];
+            for (int i = 0; i < members.length; i++) {
+                scored[2 * i] = bytes(0);
+                scored[2 * i + 1] = members[i];
+            }
+            command("ZADD", key, scored);
+        }
+
+        @Override
+        public void zRem(byte[] key, byte[]... members) {
+            command("ZREM", key, members);
+        }
+
+        @Override
+        public void geoAdd(byte[] key, double longitude, double latitude, byte[] member) {
+            command("GEOADD", key, bytes(longitude), bytes(latitude), member);
+        }
+
+        @Override
+        public void setBit(byte[] key, long offset) {
+            command("SETBIT", key, bytes(offset), bytes(1));
+        }
+
+        @Override
+        public void rPush(byte[] key, byte[]... values) {
+            command("RPUSH", key, values);
+        }
+
+        private void command(String name, byte[] key, byte[]... args) {
+            arguments.add(bytes(args.length + 2));
+            arguments.add(name.getBytes(StandardCharsets.UTF_8));
+            arguments.add(key);
+            Collections.addAll(arguments, args);
+        }
+
+        private static byte[] bytes(Object value) {
+            return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -1,10 +1,21 @@
 package com.people.manager.application.module.service.impl;
 
+import com.people.manager.application.module.model.NearbyPerson;
 import com.people.manager.application.module.model.Person;
+import com.people.manager.application.module.model.PeopleStats;
+import com.people.manager.application.module.model.PersonPage;
+import com.people.manager.application.module.service.CpfBatch;
+import com.people.manager.application.module.service.PeopleFilter;
+import com.people.manager.application.module.service.PeopleGroup;
 import com.people.manager.application.module.service.PeopleQuery;
+import com.people.manager.application.module.service.JsonPage;
+import com.people.manager.application.module.service.PeopleSearch;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Service
 public class PeopleService {
@@ -34,5 +45,53 @@ public class PeopleService {
     public List<Person> getPeopleByCountry(String country) {
         return query.findByCountry(country);
     }
-}
 
+    public PersonPage getPeoplePage(PeopleFilter filter, String cursor, int limit) {
+        return query.findPage(filter, cursor, limit);
+    }
+
+    public List<byte[]> getPeopleJson(PeopleFilter filter) {
+        return query.findJson(filter);
+    }
+
+    public byte[] getPersonJsonByCpf(String cpf) {
+        return query.findJsonByCpf(cpf);
+    }
+
+    public void streamPeopleJson(PeopleFilter filter, Consumer<List<byte[]>> sink) {
+        query.streamJson(filter, sink);
+    }
+
+    public JsonPage searchPeopleJson(PeopleSearch search, String cursor, int limit) {
+        return query.searchJson(search, cursor, limit);
+    }
+
+    public long countPeople(PeopleSearch search) {
+        return query.count(search);
+    }
+
+    public Map<String, Long> getPeopleCounts(PeopleGroup group) {
+        return query.countBy(group);
+    }
+
+    public List<NearbyPerson> getPeopleNearby(double latitude, double longitude, double radiusKm, int limit) {
+        return query.findNearby(latitude, longitude, radiusKm, limit);
+    }
+
+    public CpfBatch getPeopleJsonByCpfs(Collection<String> cpfs) {
+        return query.findJsonByCpfs(cpfs);
+    }
+
+    public List<byte[]> autocompletePeopleJson(String prefix, int limit) {
+        return query.autocompleteJson(prefix, limit);
+    }
+
+    public PeopleStats getPeopleStats() {
+        return new PeopleStats(
+                query.countAll(),
+                query.countBy(PeopleGroup.COUNTRY),
+                query.countBy(PeopleGroup.STATE),
+                query.countBy(PeopleGroup.CITY),
+                query.countBy(PeopleGroup.AGE));
+    }
+}
@@ -0,0 +1,283 @@
+package com.people.manager.application.module.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Producer/consumer pipeline of the cache rebuild. Readers take id ranges and
+ * page them out of the database into a bounded queue; writers drain it into
+ * Redis. A full queue blocks the readers, so the database is never read more
+ * than {@code capacity} chunks ahead of Redis. The first failure in any stage
+ * interrupts the others and is rethrown by {@link #run}.
+ * <p>
+ * The threads, one per reader and writer, outlive a run and time out when idle
+ * between rebuilds. Runs are serialized.
+ */
+final class RebuildPipeline<T> implements AutoCloseable {
+
+    private static final long IDLE_TIMEOUT_SECONDS = 60;
+
+    private final int readers;
+    private final int writers;
+    private final int capacity;
+    private final ThreadPoolExecutor executor;
+    private final ReentrantLock running = new ReentrantLock();
+
+    RebuildPipeline(int readers, int writers, int capacity) {
+        this.readers = Math.max(1, readers);
+        this.writers = Math.max(1, writers);
+        this.capacity = Math.max(1, capacity);
+        int threads = this.readers + this.writers;
+        this.executor = new ThreadPoolExecutor(threads, threads, IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), Thread.ofPlatform().name("cache-rebuild-", 0).daemon(true).factory());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    int readers() {
+        return readers;
+    }
+
+    /**
+     * Ids in {@code (fromExclusive, toInclusive]}.
+     */
+    record Range(long fromExclusive, long toInclusive) {
+
+        /**
+         * Splits {@code [min, max]} into at most {@code count} contiguous ranges
+         * of at least {@code minSpan} ids.
+         */
+        static List<Range> split(long min, long max, int count, long minSpan) {
+            List<Range> ranges = new ArrayList<>();
+            if (max < min) {
+                return ranges;
+            }
+            long span = max - min + 1;
+            long step = Math.max(Math.max(1, minSpan), (span + count - 1) / Math.max(1, count));
+            for (long from = min - 1; from < max; from += step) {
+                ranges.add(new Range(from, Math.min(from + step, max)));
+            }
+            return ranges;
+        }
+    }
+
+    @FunctionalInterface
+    interface Reader<T> {
+        void read(Range range, Consumer<List<T>> emit);
+    }
+
+    /**
+     * Opened once per writer thread and run, so resources such as a pipelined
+     * Redis connection are reused across chunks.
+     */
+    interface Writer<T> extends AutoCloseable {
+        void write(List<T> chunk);
+
+        @Override
+        void close();
+    }
+
+    /**
+     * Rows through a stage, its wall time (first thread started to last one done)
+     * and the time its threads spent blocked on the queue: readers blocked on a
+     * full queue mean Redis is the bottleneck, writers blocked on an empty one
+     * mean the database is.
+     */
+    record StageStats(int threads, long rows, long wallNanos, long blockedNanos) {
+
+        long rowsPerSecond() {
+            return (long) (rows / Math.max(wallNanos / 1_000_000_000.0, 0.001));
+        }
+
+        long blockedPercent() {
+            return wallNanos == 0 ? 0 : 100 * blockedNanos / (wallNanos * threads);
+        }
+    }
+
+    record Stats(StageStats read, StageStats write) {
+    }
+
+    Stats run(List<Range> ranges, Reader<T> reader, Supplier<? extends Writer<T>> writerFactory) {
+        running.lock();
+        try {
+            return runExclusively(ranges, reader, writerFactory);
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private Stats runExclusively(List<Range> ranges, Reader<T> reader, Supplier<? extends Writer<T>> writerFactory) {
+        BlockingQueue<List<T>> queue = new ArrayBlockingQueue<>(capacity);
+        Queue<Range> pending = new ConcurrentLinkedQueue<>(ranges);
+        List<T> end = new ArrayList<>(0);
+        AtomicInteger activeReaders = new AtomicInteger(readers);
+        Stage read = new Stage();
+        Stage write = new Stage();
+        Run run = new Run(readers + writers);
+
+        for (int i = 0; i < readers; i++) {
+            executor.execute(() -> run.stage(read, () -> {
+                try {
+                    Range range;
+                    while ((range = pending.poll()) != null) {
+                        reader.read(range, chunk -> {
+                            read.rows.addAndGet(chunk.size());
+                            put(queue, chunk, read);
+                        });
+                    }
+                } finally {
+                    if (activeReaders.decrementAndGet() == 0 && run.failure.get() == null) {
+                        for (int w = 0; w < writers; w++) {
+                            put(queue, end, read);
+                        }
+                    }
+                }
+            }));
+        }
+        for (int i = 0; i < writers; i++) {
+            executor.execute(() -> run.stage(write, () -> {
+                try (Writer<T> writer = writerFactory.get()) {
+                    List<T> chunk;
+                    while ((chunk = take(queue, write)) != end) {
+                        writer.write(chunk);
+                        write.rows.addAndGet(chunk.size());
+                    }
+                }
+            }));
+        }
+        run.await();
+
+        Throwable error = run.failure.get();
+        if (error instanceof RuntimeException e) {
+            throw e;
+        }
+        if (error instanceof Error e) {
+            throw e;
+        }
+        if (error != null) {
+            throw new IllegalStateException("Cache rebuild failed", error);
+        }
+        return new Stats(read.stats(readers), write.stats(writers));
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static <T> void put(BlockingQueue<List<T>> queue, List<T> chunk, Stage stage) {
+        long startedAt = System.nanoTime();
+        try {
+            queue.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cache rebuild interrupted", e);
+        } finally {
+            stage.blocked.addAndGet(System.nanoTime() - startedAt);
+        }
+    }
+
+    private static <T> List<T> take(BlockingQueue<List<T>> queue, Stage stage) {
+        long startedAt = System.nanoTime();
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cache rebuild interrupted", e);
+        } finally {
+            stage.blocked.addAndGet(System.nanoTime() - startedAt);
+        }
+    }
+
+    /**
+     * Tracks the threads of one run, so the first failure can interrupt the
+     * others wherever they are blocked: on the queue, on Redis or on JDBC.
+     */
+    private static final class Run {
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        final CountDownLatch done;
+
+        Run(int tasks) {
+            this.done = new CountDownLatch(tasks);
+        }
+
+        void stage(Stage stage, Runnable body) {
+            threads.add(Thread.currentThread());
+            stage.started();
+            try {
+                if (failure.get() == null) {
+                    body.run();
+                }
+            } catch (Throwable e) {
+                fail(e);
+            } finally {
+                threads.remove(Thread.currentThread());
+                Thread.interrupted();
+                stage.finished();
+                done.countDown();
+            }
+        }
+
+        void fail(Throwable e) {
+            if (failure.compareAndSet(null, e)) {
+                threads.forEach(Thread::interrupt);
+            }
+        }
+
+        /**
+         * Waits for every task even when interrupted, so no thread of this run is
+         * still writing when the next one starts.
+         */
+        void await() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    fail(e);
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final class Stage {
+        final AtomicLong rows = new AtomicLong();
+        final AtomicLong blocked = new AtomicLong();
+        final AtomicLong firstStart = new AtomicLong(Long.MAX_VALUE);
+        final AtomicLong lastFinish = new AtomicLong(Long.MIN_VALUE);
+
+        void started() {
+            firstStart.accumulateAndGet(System.nanoTime(), Math::min);
+        }
+
+        void finished() {
+            lastFinish.accumulateAndGet(System.nanoTime(), Math::max);
+        }
+
+        StageStats stats(int threads) {
+            long wall = lastFinish.get() == Long.MIN_VALUE ? 0 : Math.max(0, lastFinish.get() - firstStart.get());
+            return new StageStats(threads, rows.get(), wall, blocked.get());
+        }
+    }
+}
@@ -1,204 +1,1196 @@
 package com.people.manager.application.module.service.impl;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.people.manager.application.module.codec.PersonPayloads;
+import com.people.manager.application.module.infra.BloomFilter;
+import com.people.manager.application.module.infra.CacheJobRunningException;
+import com.people.manager.application.module.infra.CacheKeys;
+import com.people.manager.application.module.infra.CacheLease;
+import com.people.manager.application.module.infra.GeoDistance;
+import com.people.manager.application.module.infra.InvalidCursorException;
+import com.people.manager.application.module.infra.LeaseLostException;
+import com.people.manager.application.module.infra.NearCache;
+import com.people.manager.application.module.infra.NoPreviousGenerationException;
+import com.people.manager.application.module.infra.SearchTerms;
+import com.people.manager.application.module.model.CacheGenerations;
 import com.people.manager.application.module.model.Address;
+import com.people.manager.application.module.model.NearbyPerson;
 import com.people.manager.application.module.model.Person;
+import com.people.manager.application.module.model.PersonPage;
+import com.people.manager.application.module.model.PersonView;
 import com.people.manager.application.module.repository.PersonRepository;
+import com.people.manager.application.module.service.JsonPage;
+import com.people.manager.application.module.service.PeopleGroup;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisClusterConnection;
 import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisGeoCommands.GeoLocation;
+import org.springframework.data.redis.connection.RedisGeoCommands.GeoSearchCommandArgs;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.domain.geo.GeoReference;
+import org.springframework.data.redis.domain.geo.GeoShape;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 @Slf4j
 @Service
 public class RedisCacheService {
-    private static final String CACHE_ACTIVE_KEY = "cache:activeDb";
+    private static final String CACHE_LIVE_KEY = "{cache}:live";
+    private static final String CACHE_GENERATIONS_KEY = "{cache}:generations";
+    private static final String CACHE_VERSION_KEY = "{cache}:version";
+    private static final String CACHE_SEQUENCE_KEY = "{cache}:sequence";
+    private static final String CACHE_BUILDING_KEY = "{cache}:building";
+    private static final List<String> FENCED_POINTER_KEYS = List.of(
+            CACHE_LIVE_KEY, CACHE_GENERATIONS_KEY, CACHE_VERSION_KEY, CacheLease.KEY, CACHE_BUILDING_KEY);
+    private static final String CACHE_EVENTS_CHANNEL = "cache:events";
+    private static final ChannelTopic CACHE_EVENTS_TOPIC = new ChannelTopic(CACHE_EVENTS_CHANNEL);
+    private static final int UNLINK_BATCH_SIZE = 1000;
+    private static final String INITIAL_CURSOR = "0";
+    private static final long REPLICA_POLL_MS = 50;
+    private static final long LOCAL_LEASE_POLL_MS = 200;
+    private static final long LOCAL_LEASE_WAIT_MS = 60_000;
+    private static final int BLOOM_HEADROOM = 10_000;
+    private static final int RANGES_PER_READER = 4;
+    private static final int SEARCH_SCAN_PER_RESULT = 10;
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> FETCH_INDEX_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/fetch-index.lua"), List.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SEARCH_INDEX_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/search-index.lua"), List.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> AUTOCOMPLETE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/autocomplete.lua"), List.class);
+    private static final RedisScript<Long> CLAIM_GENERATION_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/claim-generation.lua"), Long.class);
+    private static final RedisScript<Long> FENCED_WRITE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/fenced-write.lua"), Long.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ADVANCE_GENERATION_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/advance-generation.lua"), List.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ROLLBACK_GENERATION_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/rollback-generation.lua"), List.class);
 
-    private final ObjectMapper objectMapper;
+    private final PersonPayloads payloads;
 
-    private final RedisTemplate<String, Object> redisControlTemplate;
-    private final RedisTemplate<String, Object> redisBuffer1Template;
-    private final RedisTemplate<String, Object> redisBuffer2Template;
+    private final RedisTemplate<String, Object> cacheTemplate;
+    private final RedisTemplate<String, Object> replicaTemplate;
     private final PersonRepository personRepository;
+    private final NearCache nearCache;
+    private final CacheLease cacheLease;
+    private final RedisMessageListenerContainer cacheEventsContainer;
+    private final MessageListener cacheEventsListener =
+            (message, pattern) -> onCacheEvent(new String(message.getBody(), StandardCharsets.UTF_8));
+    private final AtomicReference<LiveGeneration> liveGeneration = new AtomicReference<>();
+    private volatile boolean subscribed;
+    private final int chunkSize;
+    private final int indexChunkSize;
+    private final boolean deltaEnabled;
+    private final int retainedGenerations;
+    private final long replicaTimeoutMs;
+    private volatile boolean readOnlyScripts = true;
+    private final boolean bloomEnabled;
+    private final double bloomFpp;
+    private final AtomicReference<LoadedBloom> bloom = new AtomicReference<>();
+    private final AtomicBoolean bloomLoading = new AtomicBoolean();
+    private final RebuildPipeline<Person> rebuildPipeline;
+    private final int batchSize;
+    private final Timer flushTimer;
 
     public RedisCacheService(
-            ObjectMapper objectMapper,
-            @Qualifier("redisTemplateControl") RedisTemplate<String, Object> redisControlTemplate,
-            @Qualifier("redisTemplateBuffer1") RedisTemplate<String, Object> redisBuffer1Template,
-            @Qualifier("redisTemplateBuffer2") RedisTemplate<String, Object> redisBuffer2Template,
-            PersonRepository personRepository) {
-        this.objectMapper = objectMapper;
-        this.redisControlTemplate = redisControlTemplate;
-        this.redisBuffer1Template = redisBuffer1Template;
-        this.redisBuffer2Template = redisBuffer2Template;
+            PersonPayloads payloads,
+            @Qualifier("redisTemplateCache") RedisTemplate<String, Object> cacheTemplate,
+            @Qualifier("redisTemplateCacheReplica") RedisTemplate<String, Object> replicaTemplate,
+            PersonRepository personRepository,
+            NearCache nearCache,
+            CacheLease cacheLease,
+            MeterRegistry meterRegistry,
+            RedisMessageListenerContainer cacheEventsContainer,
+            @Value("${cache.rebuild.chunk-size:1000}") int chunkSize,
+            @Value("${cache.read.index-chunk-size:1000}") int indexChunkSize,
+            @Value("${cache.delta.enabled:true}") boolean deltaEnabled,
+            @Value("${cache.generations.retained:2}") int retainedGenerations,
+            @Value("${cache.swap.replica-timeout-ms:10000}") long replicaTimeoutMs,
+            @Value("${cache.bloom.enabled:true}") boolean bloomEnabled,
+            @Value("${cache.bloom.fpp:0.01}") double bloomFpp,
+            @Value("${cache.rebuild.readers:4}") int rebuildReaders,
+            @Value("${cache.rebuild.writers:8}") int rebuildWriters,
+            @Value("${cache.rebuild.queue-capacity:16}") int rebuildQueueCapacity,
+            @Value("${cache.rebuild.batch-size:100}") int batchSize) {
+        this.payloads = payloads;
+        this.cacheTemplate = cacheTemplate;
+        this.replicaTemplate = replicaTemplate;
         this.personRepository = personRepository;
+        this.nearCache = nearCache;
+        this.cacheLease = cacheLease;
+        this.cacheEventsContainer = cacheEventsContainer;
+        this.chunkSize = chunkSize;
+        this.indexChunkSize = indexChunkSize;
+        this.deltaEnabled = deltaEnabled;
+        this.retainedGenerations = retainedGenerations;
+        this.replicaTimeoutMs = replicaTimeoutMs;
+        this.bloomEnabled = bloomEnabled;
+        this.bloomFpp = bloomFpp;
+        this.rebuildPipeline = new RebuildPipeline<>(rebuildReaders, rebuildWriters, rebuildQueueCapacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushTimer = Timer.builder("people.rebuild.flush")
+                .description("Rebuild pipeline round-trips, one per batch")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
     }
 
-    private int getActiveDbNumber() {
-        Object activeDbObj = redisControlTemplate.opsForValue().get(CACHE_ACTIVE_KEY);
-        if (activeDbObj == null) {
-            setActiveDbNumber(1);
-            return 1;
+    @PreDestroy
+    void shutdown() {
+        rebuildPipeline.close();
+    }
+
+    private void subscribeToCacheEvents() {
+        if (subscribed) {
+            return;
+        }
+        try {
+            cacheEventsContainer.addMessageListener(cacheEventsListener, CACHE_EVENTS_TOPIC);
+            subscribed = true;
+        } catch (RuntimeException e) {
+            cacheEventsContainer.removeMessageListener(cacheEventsListener, CACHE_EVENTS_TOPIC);
+            throw e;
+        }
+    }
+
+    private LiveGeneration liveGeneration() {
+        LiveGeneration current = liveGeneration.get();
+        return current != null ? current : loadLiveGeneration();
+    }
+
+    private LiveGeneration loadLiveGeneration() {
+        List<Object> values = cacheTemplate.opsForValue().multiGet(List.of(CACHE_LIVE_KEY, CACHE_VERSION_KEY));
+        Object generationObj = values == null ? null : values.get(0);
+        Object versionObj = values == null ? null : values.get(1);
+
+        return updateLiveGeneration(new LiveGeneration(
+                generationObj == null ? 0 : Long.parseLong(generationObj.toString()),
+                versionObj == null ? 0 : Long.parseLong(versionObj.toString())));
+    }
+
+    private LiveGeneration updateLiveGeneration(LiveGeneration candidate) {
+        LiveGeneration previous = liveGeneration.getAndAccumulate(candidate, LiveGeneration::newest);
+        LiveGeneration current = LiveGeneration.newest(previous, candidate);
+        nearCache.advanceTo(current.version());
+        if (previous != null && previous.generation() != current.generation()) {
+            log.info("Live cache generation is now {} (version {})", current.generation(), current.version());
         }
-        return Integer.parseInt(activeDbObj.toString());
+        return current;
     }
 
-    private int getInactiveDbNumber() {
-        return (getActiveDbNumber() == 1) ? 2 : 1;
+    private void onCacheEvent(String event) {
+        String[] parts = event.split(":");
+        updateLiveGeneration(new LiveGeneration(Long.parseLong(parts[0]), Long.parseLong(parts[1])));
     }
 
-    private void setActiveDbNumber(int dbNumber) {
-        redisControlTemplate.opsForValue().set(CACHE_ACTIVE_KEY, String.valueOf(dbNumber));
-        log.info("Switched active Redis DB to DB{}", dbNumber);
+    @Scheduled(fixedDelayString = "${cache.pointer.poll-ms}")
+    public void pollLiveGeneration() {
+        try {
+            subscribeToCacheEvents();
+            loadLiveGeneration();
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh live cache pointer: {}", e.getMessage());
+        }
     }
 
-    private RedisTemplate<String, Object> getActiveRedisTemplate() {
-        return (getActiveDbNumber() == 1) ? redisBuffer1Template : redisBuffer2Template;
+    private void promoteGeneration(long generation, CacheLease.Lease lease) {
+        List<Long> retired = advanceGeneration(String.valueOf(generation), lease);
+        log.info("Promoted cache generation {} to live, retiring {}", generation, retired);
+        retire(retired);
     }
 
-    private RedisTemplate<String, Object> getInactiveRedisTemplate() {
-        return (getInactiveDbNumber() == 1) ? redisBuffer1Template : redisBuffer2Template;
+    private void bumpVersion(CacheLease.Lease lease) {
+        advanceGeneration("", lease);
+    }
+
+    /**
+     * Compare-and-flip: the script only moves the pointer while {@code lease} is
+     * still held, so a node whose lease expired mid-build can never promote.
+     */
+    private List<Long> advanceGeneration(String generation, CacheLease.Lease lease) {
+        List<?> reply = cacheTemplate.execute(ADVANCE_GENERATION_SCRIPT, FENCED_POINTER_KEYS,
+                generation, String.valueOf(retainedGenerations), lease.value());
+        if (reply == null || reply.isEmpty()) {
+            throw new LeaseLostException(lease);
+        }
+        return applyPointerChange(reply);
+    }
+
+    private void discardGeneration(long generation) {
+        cacheTemplate.opsForSet().remove(CACHE_BUILDING_KEY, String.valueOf(generation));
+        retire(List.of(generation));
+    }
+
+    /**
+     * Drops generations left half-built by a node that lost its lease or died.
+     * Only called by the lease holder, so nobody else can be building them.
+     */
+    private void dropOrphanedGenerations() {
+        Set<Object> orphaned = cacheTemplate.opsForSet().members(CACHE_BUILDING_KEY);
+        if (orphaned == null || orphaned.isEmpty()) {
+            return;
+        }
+        log.warn("Dropping orphaned cache generations {}", orphaned);
+        orphaned.forEach(generation -> discardGeneration(Long.parseLong(generation.toString())));
+    }
+
+    /**
+     * Takes the cache lease like the jobs do, so a rebuild or delta refresh is never
+     * writing to the generation this retires; while one is running it fails fast.
+     */
+    public CacheGenerations rollbackGeneration() {
+        CacheLease.Lease lease = cacheLease.tryAcquire().orElseThrow(CacheJobRunningException::new);
+        try {
+            List<?> reply = cacheTemplate.execute(ROLLBACK_GENERATION_SCRIPT, FENCED_POINTER_KEYS, lease.value());
+            if (reply == null) {
+                throw new LeaseLostException(lease);
+            }
+            if (reply.isEmpty()) {
+                throw new NoPreviousGenerationException();
+            }
+
+            List<Long> retired = applyPointerChange(reply);
+            log.warn("Rolled live cache generation back to {}, retiring {}", reply.get(0), retired);
+            retire(retired);
+        } finally {
+            cacheLease.release(lease);
+        }
+        return getGenerations();
+    }
+
+    public CacheGenerations getGenerations() {
+        return new CacheGenerations(loadLiveGeneration().generation(), retainedGenerations());
+    }
+
+    private List<Long> retainedGenerations() {
+        List<Object> retained = cacheTemplate.opsForList().range(CACHE_GENERATIONS_KEY, 0, -1);
+        return retained == null ? Collections.emptyList()
+                : retained.stream().map(g -> Long.parseLong(g.toString())).toList();
+    }
+
+    /**
+     * Publishes the pointer returned by a generation script ({@code live, version,
+     * retired...}) and returns the generations it retired.
+     */
+    private List<Long> applyPointerChange(List<?> reply) {
+        LiveGeneration live = new LiveGeneration(
+                Long.parseLong(reply.get(0).toString()),
+                Long.parseLong(reply.get(1).toString()));
+        updateLiveGeneration(live);
+        cacheTemplate.convertAndSend(CACHE_EVENTS_CHANNEL, live.generation() + ":" + live.version());
+        return reply.subList(2, reply.size()).stream()
+                .map(g -> Long.parseLong(g.toString()))
+                .toList();
     }
 
     @Scheduled(cron = "${cache.cron.expression}")
     public void scheduledCacheJob() {
-        log.info("Starting cache job...");
+        Optional<CacheLease.Lease> acquired = acquireAfterLocalJobs();
+        if (acquired.isEmpty()) {
+            if (cacheLease.heldByThisNode()) {
+                log.warn("This node's delta refresh still holds the cache lease after {}ms, skipping rebuild",
+                        LOCAL_LEASE_WAIT_MS);
+            } else {
+                log.info("Cache lease is held by another node, skipping rebuild");
+            }
+            return;
+        }
+        CacheLease.Lease lease = acquired.get();
+        log.info("Starting cache job with lease {}...", lease.token());
+
+        long generation = 0;
+        try {
+            dropOrphanedGenerations();
+
+            generation = Objects.requireNonNull(cacheTemplate.opsForValue().increment(CACHE_SEQUENCE_KEY));
+            cacheTemplate.opsForSet().add(CACHE_BUILDING_KEY, String.valueOf(generation));
+            log.info("Building cache generation {}", generation);
 
-        RedisTemplate<String, Object> inactiveTemplate = getInactiveRedisTemplate();
-        int inactiveDb = getInactiveDbNumber();
-        log.info("Inactive Redis DB selected: DB{}", inactiveDb);
+            LocalDateTime watermark = currentWatermark();
 
-        clearPersonAndIndexKeys(inactiveTemplate);
-        cachePeopleInBatches(inactiveTemplate);
-        setActiveDbNumber(inactiveDb);
+            String namespace = CacheKeys.generation(generation);
+            cachePeopleInBatches(generation, () -> cacheLease.renew(lease));
+            setWatermark(namespace, watermark);
+            if (!awaitReplicas(namespace)) {
+                log.warn("Replicas did not catch up on cache generation {}, discarding it", generation);
+                discardGeneration(generation);
+                return;
+            }
+            promoteGeneration(generation, lease);
 
-        log.info("Cache job finished. Active DB is now DB{}", inactiveDb);
+            log.info("Cache job finished. Live generation is now {}", generation);
+        } catch (LeaseLostException e) {
+            log.warn("{}, discarding cache generation {}", e.getMessage(), generation);
+            if (generation > 0) {
+                discardGeneration(generation);
+            }
+        } catch (RuntimeException e) {
+            log.error("Cache rebuild failed, discarding cache generation {}", generation, e);
+            if (generation > 0) {
+                discardGeneration(generation);
+            }
+        } finally {
+            cacheLease.release(lease);
+        }
     }
 
-    private void clearPersonAndIndexKeys(RedisTemplate<String, Object> template) {
-        log.info("Clearing old cache keys for people and indexes...");
+    /**
+     * A delta refresh of this node holding the lease only delays the rebuild: it
+     * is short, and skipping until the next cron tick could skip every tick that
+     * happens to land on one.
+     */
+    private Optional<CacheLease.Lease> acquireAfterLocalJobs() {
+        long deadline = System.nanoTime() + LOCAL_LEASE_WAIT_MS * 1_000_000;
+        Optional<CacheLease.Lease> acquired = cacheLease.tryAcquire();
+        while (acquired.isEmpty() && cacheLease.heldByThisNode() && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(LOCAL_LEASE_POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Optional.empty();
+            }
+            acquired = cacheLease.tryAcquire();
+        }
+        return acquired;
+    }
 
-        assert template.getConnectionFactory() != null;
+    @Scheduled(fixedDelayString = "${cache.delta.interval-ms}", initialDelayString = "${cache.delta.interval-ms}")
+    public void scheduledDeltaJob() {
+        if (!deltaEnabled) {
+            return;
+        }
 
-        try (RedisConnection connection = template.getConnectionFactory().getConnection()) {
-            ScanOptions scanOptions = ScanOptions.scanOptions().match("person_*").build();
-            Cursor<byte[]> cursor = connection.scan(scanOptions);
-            while (cursor.hasNext()) {
-                byte[] key = cursor.next();
-                connection.keyCommands().del(key);
+        Optional<CacheLease.Lease> acquired = cacheLease.tryAcquire();
+        if (acquired.isEmpty()) {
+            return;
+        }
+        try {
+            patchChanges(acquired.get());
+        } catch (LeaseLostException e) {
+            log.warn("{}, delta refresh stopped", e.getMessage());
+        } finally {
+            cacheLease.release(acquired.get());
+        }
+    }
+
+    private void patchChanges(CacheLease.Lease lease) {
+        String namespace = CacheKeys.generation(loadLiveGeneration().generation());
+        LocalDateTime since = getWatermark(namespace);
+        if (since == null) {
+            log.debug("Live generation has no watermark yet, waiting for a full rebuild");
+            return;
+        }
+
+        LocalDateTime watermark = currentWatermark();
+        if (watermark == null || !watermark.isAfter(since)) {
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        claimGeneration(namespace, lease);
+        BloomMeta bloomMeta = readBloomMeta(namespace);
+        long changed = forEachChunk(
+                lastId -> toPeople(personRepository.findChangedViewChunkAfter(since, lastId, Limit.of(chunkSize))),
+                chunk -> {
+                    patchChunk(namespace, chunk, bloomMeta, lease);
+                    cacheLease.renew(lease);
+                });
+        // Bumping before the replicas have the patch would let nodes refill L1 from
+        // a stale replica until some later delta bumps again. Leaving the watermark
+        // behind makes the next run re-apply these (idempotent) changes and bump then.
+        if (changed > 0 && !awaitReplicas(namespace)) {
+            log.warn("Replicas are lagging behind the delta refresh, retrying it on the next run");
+            return;
+        }
+        try (RedisConnection connection = connection()) {
+            GenerationWrites.Recorded writes = new GenerationWrites.Recorded();
+            writes.set(key(namespace, CacheKeys.WATERMARK), watermark.toString().getBytes(StandardCharsets.UTF_8));
+            writeFenced(connection, namespace, lease, writes);
+        }
+        if (changed > 0) {
+            bumpVersion(lease);
+        }
+
+        log.info("Delta refresh patched {} people changed since {} in {}ms",
+                changed, since, (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    private LocalDateTime currentWatermark() {
+        LocalDateTime personUpdatedAt = personRepository.findMaxPersonUpdatedAt();
+        LocalDateTime addressUpdatedAt = personRepository.findMaxAddressUpdatedAt();
+        if (personUpdatedAt == null) {
+            return addressUpdatedAt;
+        }
+        if (addressUpdatedAt == null) {
+            return personUpdatedAt;
+        }
+        return personUpdatedAt.isAfter(addressUpdatedAt) ? personUpdatedAt : addressUpdatedAt;
+    }
+
+    private LocalDateTime getWatermark(String namespace) {
+        Object watermark = cacheTemplate.opsForValue().get(namespace + CacheKeys.WATERMARK);
+        return watermark == null ? null : LocalDateTime.parse(watermark.toString());
+    }
+
+    private void setWatermark(String namespace, LocalDateTime watermark) {
+        if (watermark != null) {
+            cacheTemplate.opsForValue().set(namespace + CacheKeys.WATERMARK, watermark.toString());
+        }
+    }
+
+    /**
+     * Waits until every replica of the master holding {@code namespace} has
+     * replicated up to the master offset seen now, so replica reads of the
+     * generation see everything written so far.
+     */
+    private boolean awaitReplicas(String namespace) {
+        byte[] key = key(namespace, CacheKeys.WATERMARK);
+        long deadline = System.nanoTime() + replicaTimeoutMs * 1_000_000;
+        try (RedisConnection connection = connection()) {
+            Properties info = replicationInfo(connection, key);
+            long target = Long.parseLong(info.getProperty("master_repl_offset", "0").trim());
+            while (!replicasReached(info, target)) {
+                if (System.nanoTime() > deadline) {
+                    return false;
+                }
+                Thread.sleep(REPLICA_POLL_MS);
+                info = replicationInfo(connection, key);
             }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
 
-            scanOptions = ScanOptions.scanOptions().match("people_by_*").build();
-            cursor = connection.scan(scanOptions);
-            while (cursor.hasNext()) {
-                byte[] key = cursor.next();
-                connection.keyCommands().del(key);
+    private static Properties replicationInfo(RedisConnection connection, byte[] key) {
+        if (connection instanceof RedisClusterConnection cluster) {
+            return cluster.serverCommands().info(cluster.clusterGetNodeForKey(key), "replication");
+        }
+        return connection.serverCommands().info("replication");
+    }
+
+    /**
+     * Replicas are listed as {@code slaveN:ip=...,port=...,state=online,offset=...,lag=...}.
+     */
+    private static boolean replicasReached(Properties info, long target) {
+        for (String name : info.stringPropertyNames()) {
+            if (!name.matches("slave\\d+")) {
+                continue;
             }
+            for (String field : info.getProperty(name).split(",")) {
+                if (field.startsWith("offset=") && Long.parseLong(field.substring(7).trim()) < target) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
 
-            scanOptions = ScanOptions.scanOptions().match("person_by_cpf_*").build();
-            cursor = connection.scan(scanOptions);
-            while (cursor.hasNext()) {
-                byte[] key = cursor.next();
-                connection.keyCommands().del(key);
+    private void retire(List<Long> generations) {
+        for (long generation : generations) {
+            CompletableFuture.runAsync(() -> dropGeneration(generation))
+                    .exceptionally(e -> {
+                        log.warn("Could not drop retired cache generation {}: {}", generation, e.getMessage());
+                        return null;
+                    });
+        }
+    }
+
+    /**
+     * Unlinks every key of a generation. Person keys come from its {@code person_keys}
+     * hash and index keys from its {@code indexes} set, so no keyspace SCAN is needed.
+     */
+    void dropGeneration(long generation) {
+        String namespace = CacheKeys.generation(generation);
+        long startedAt = System.nanoTime();
+        long dropped = 0;
+
+        try (RedisConnection connection = connection()) {
+            List<byte[]> batch = new ArrayList<>(UNLINK_BATCH_SIZE);
+            ScanOptions scanOptions = ScanOptions.scanOptions().count(UNLINK_BATCH_SIZE).build();
+            try (Cursor<Map.Entry<byte[], byte[]>> cursor =
+                         connection.hashCommands().hScan(key(namespace, CacheKeys.PERSON_KEYS), scanOptions)) {
+                while (cursor.hasNext()) {
+                    batch.add(key(namespace, cursor.next().getValue()));
+                    if (batch.size() == UNLINK_BATCH_SIZE) {
+                        dropped += unlink(connection, batch);
+                    }
+                }
             }
 
-            log.info("Old cache keys cleared.");
+            Set<byte[]> indexes = connection.setCommands().sMembers(key(namespace, CacheKeys.INDEXES));
+            for (byte[] index : indexes == null ? Set.<byte[]>of() : indexes) {
+                batch.add(key(namespace, index));
+                if (batch.size() == UNLINK_BATCH_SIZE) {
+                    dropped += unlink(connection, batch);
+                }
+            }
 
+            batch.add(key(namespace, CacheKeys.PERSON_KEYS));
+            batch.add(key(namespace, CacheKeys.INDEXES));
+            batch.add(key(namespace, CacheKeys.WATERMARK));
+            batch.add(key(namespace, CacheKeys.BLOOM));
+            batch.add(key(namespace, CacheKeys.BLOOM_META));
+            batch.add(key(namespace, CacheKeys.BLOOM_LOG));
+            batch.add(key(namespace, CacheKeys.GEO));
+            batch.add(key(namespace, CacheKeys.PREFIXES));
+            batch.add(key(namespace, CacheKeys.FENCE));
+            for (PeopleGroup group : PeopleGroup.values()) {
+                batch.add(key(namespace, group.countsKey()));
+            }
+            dropped += unlink(connection, batch);
         }
+
+        log.info("Dropped cache generation {}: {} keys unlinked in {}ms",
+                generation, dropped, (System.nanoTime() - startedAt) / 1_000_000);
     }
 
-    private void cachePeopleInBatches(RedisTemplate<String, Object> template) {
-        log.info("Fetching all people from database...");
-        List<Person> allPeople = personRepository.findAll();
+    private static long unlink(RedisConnection connection, List<byte[]> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        Long removed = connection.keyCommands().unlink(keys.toArray(new byte[0][]));
+        keys.clear();
+        return removed == null ? 0 : removed;
+    }
 
-        log.info("Total people fetched: {}", allPeople.size());
+    /**
+     * Loads every person into {@code generation}. Any failure is rethrown, so the
+     * caller never promotes a partially written generation.
+     */
+    void cachePeopleInBatches(long generation, Runnable onChunk) {
+        String namespace = CacheKeys.generation(generation);
+        long startedAt = System.nanoTime();
+        long batchesBefore = flushTimer.count();
+        AtomicLong heap = new AtomicLong(usedHeap());
+        BloomFilter bloomFilter = bloomEnabled
+                ? BloomFilter.create(personRepository.count() * 5 / 4 + BLOOM_HEADROOM, bloomFpp)
+                : null;
+        GroupCounts counts = new GroupCounts(LocalDate.now());
 
-        List<List<Person>> batches = IntStream.range(0, (allPeople.size() + 99) / 100)
-                .mapToObj(i -> allPeople.subList(i * 100, Math.min((i + 1) * 100, allPeople.size())))
-                .toList();
+        List<RebuildPipeline.Range> ranges = idRanges();
+        log.info("Streaming people from database in {} id ranges, chunks of {}, batches of {}...",
+                ranges.size(), chunkSize, batchSize);
 
-        log.info("Total batches: {}", batches.size());
-
-        ForkJoinPool customPool = new ForkJoinPool(10);
-
-        try {
-            customPool.submit(() ->
-                    batches.parallelStream().forEach(batch -> {
-                        assert template.getConnectionFactory() != null;
-                        RedisConnection connection = template.getConnectionFactory().getConnection();
-                        connection.openPipeline();
-                        try {
-                            for (Person person : batch) {
-                                byte[] personJson;
-                                try {
-                                    personJson = objectMapper.writeValueAsBytes(person);
-                                } catch (JsonProcessingException e) {
-                                    log.error("Failed to serialize person {}", person.getId(), e);
-                                    continue;
-                                }
-
-                                String personKey = "person_" + person.getId() + "_" + person.getCpf();
-                                connection.stringCommands().set(
-                                        personKey.getBytes(StandardCharsets.UTF_8),
-                                        personJson
-                                );
-
-                                connection.setCommands().sAdd(
-                                        "all_people".getBytes(StandardCharsets.UTF_8),
-                                        personKey.getBytes(StandardCharsets.UTF_8)
-                                );
-
-                                Address addr = person.getAddress();
-                                if (addr != null) {
-                                    if (addr.getCity() != null) {
-                                        String key = "people_by_city_" + addr.getCity();
-                                        connection.setCommands().sAdd(key.getBytes(), personKey.getBytes());
-                                    }
-                                    if (addr.getState() != null) {
-                                        String key = "people_by_state_" + addr.getState();
-                                        connection.setCommands().sAdd(key.getBytes(), personKey.getBytes());
-                                    }
-                                    if (addr.getCountry() != null) {
-                                        String key = "people_by_country_" + addr.getCountry();
-                                        connection.setCommands().sAdd(key.getBytes(), personKey.getBytes());
-                                    }
-                                }
-
-                                String cpfKey = "person_by_cpf_" + person.getCpf();
-                                connection.setCommands().sAdd(cpfKey.getBytes(), personKey.getBytes());
-                            }
-                        } finally {
-                            connection.closePipeline();
-                            connection.close();
+        RebuildPipeline.Stats stats = rebuildPipeline.run(ranges,
+                (range, emit) -> forEachChunk(range.fromExclusive(),
+                        lastId -> toPeople(personRepository.findViewChunkBetween(
+                                lastId, range.toInclusive(), Limit.of(chunkSize))),
+                        emit),
+                () -> new GenerationWriter(namespace, rows -> {
+                    if (bloomFilter != null) {
+                        synchronized (bloomFilter) {
+                            rows.forEach(person -> bloomItemsOf(person).forEach(bloomFilter::add));
                         }
-                    })
-            ).get();
-        } catch (Exception e) {
-            log.error("Error during cache batch processing", e);
+                    }
+                    counts.addAll(rows);
+                    heap.accumulateAndGet(usedHeap(), Math::max);
+                    onChunk.run();
+                }));
+        if (bloomFilter != null) {
+            writeBloomFilter(namespace, bloomFilter);
+        }
+        writeCounts(namespace, counts);
+
+        long totalRows = stats.write().rows();
+        double seconds = Math.max((System.nanoTime() - startedAt) / 1_000_000_000.0, 0.001);
+        log.info("Rebuild stages: read {} rows/sec with {} threads ({}% blocked on a full queue), "
+                        + "write {} rows/sec with {} threads ({}% waiting for rows)",
+                stats.read().rowsPerSecond(), stats.read().threads(), stats.read().blockedPercent(),
+                stats.write().rowsPerSecond(), stats.write().threads(), stats.write().blockedPercent());
+        log.info("All people cached successfully in generation {}. rows={}, elapsed={}s, rows/sec={}, batches/sec={}, peakHeap={}MB",
+                generation, totalRows, String.format("%.2f", seconds), (long) (totalRows / seconds),
+                (long) ((flushTimer.count() - batchesBefore) / seconds), heap.get() / (1024 * 1024));
+    }
+
+    /**
+     * Several ranges per reader, so a reader that drew a dense range does not
+     * leave the others idle at the end.
+     */
+    private List<RebuildPipeline.Range> idRanges() {
+        Long min = personRepository.findMinId();
+        Long max = personRepository.findMaxId();
+        if (min == null || max == null) {
+            return List.of();
+        }
+        return RebuildPipeline.Range.split(min, max, rebuildPipeline.readers() * RANGES_PER_READER, chunkSize);
+    }
+
+    private static List<Person> toPeople(List<PersonView> views) {
+        return views.stream().map(PersonView::toPerson).toList();
+    }
+
+    private long forEachChunk(LongFunction<List<Person>> loader, Consumer<List<Person>> sink) {
+        return forEachChunk(0, loader, sink);
+    }
+
+    private long forEachChunk(long afterId, LongFunction<List<Person>> loader, Consumer<List<Person>> sink) {
+        long total = 0;
+        long lastId = afterId;
+        List<Person> chunk;
+        do {
+            chunk = loader.apply(lastId);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            sink.accept(chunk);
+            lastId = chunk.get(chunk.size() - 1).getId();
+            total += chunk.size();
+        } while (chunk.size() == chunkSize);
+        return total;
+    }
+
+    /**
+     * A rebuild writer thread: one connection for the whole run, pipelining each
+     * batch in a single round-trip. A failed command fails the run.
+     */
+    private final class GenerationWriter implements RebuildPipeline.Writer<Person> {
+        private final String namespace;
+        private final Consumer<List<Person>> afterChunk;
+        private final RedisConnection connection = connection();
+        private final GenerationWrites writes = GenerationWrites.to(connection);
+
+        GenerationWriter(String namespace, Consumer<List<Person>> afterChunk) {
+            this.namespace = namespace;
+            this.afterChunk = afterChunk;
+        }
+
+        @Override
+        public void write(List<Person> rows) {
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                List<Person> batch = rows.subList(from, Math.min(from + batchSize, rows.size()));
+                long startedAt = System.nanoTime();
+                connection.openPipeline();
+                try {
+                    for (Person person : batch) {
+                        writePerson(writes, namespace, person);
+                    }
+                    registerIndexes(writes, namespace, batch);
+                } finally {
+                    connection.closePipeline();
+                }
+                flushTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+            afterChunk.accept(rows);
+        }
+
+        @Override
+        public void close() {
+            connection.close();
+        }
+    }
+
+    private void patchChunk(String namespace, List<Person> chunk, BloomMeta bloomMeta, CacheLease.Lease lease) {
+        try (RedisConnection connection = connection()) {
+            byte[][] ids = chunk.stream()
+                    .map(p -> String.valueOf(p.getId()).getBytes(StandardCharsets.UTF_8))
+                    .toArray(byte[][]::new);
+            List<byte[]> previousKeys = connection.hashCommands()
+                    .hMGet(key(namespace, CacheKeys.PERSON_KEYS), ids);
+            Map<String, Person> previous = loadPrevious(connection, namespace, previousKeys);
+            LocalDate today = LocalDate.now();
+
+            for (int from = 0; from < chunk.size(); from += batchSize) {
+                int to = Math.min(from + batchSize, chunk.size());
+                GenerationWrites.Recorded writes = new GenerationWrites.Recorded();
+                for (int i = from; i < to; i++) {
+                    Person person = chunk.get(i);
+                    byte[] previousKey = previousKeys == null ? null : previousKeys.get(i);
+                    Person previousPerson = null;
+                    if (previousKey != null) {
+                        previousPerson = previous.get(new String(previousKey, StandardCharsets.UTF_8));
+                        unindexPerson(writes, namespace, new String(previousKey, StandardCharsets.UTF_8),
+                                previousPerson, person);
+                    }
+                    if (previousKey == null || previousPerson != null) {
+                        adjustCounts(writes, namespace, previousPerson, person, today);
+                    }
+                    writePerson(writes, namespace, person);
+                    if (bloomMeta != null) {
+                        addToBloomFilter(writes, namespace, bloomMeta, person);
+                    }
+                }
+                registerIndexes(writes, namespace, chunk.subList(from, to));
+                writeFenced(connection, namespace, lease, writes);
+            }
+        }
+    }
+
+    /**
+     * Makes {@code lease} the only writer of a live generation before the delta
+     * refresh patches it. Fencing tokens only grow, so once a newer holder has
+     * claimed the generation a stale one can neither claim it back nor write to it.
+     */
+    private void claimGeneration(String namespace, CacheLease.Lease lease) {
+        Long claimed = cacheTemplate.execute(CLAIM_GENERATION_SCRIPT, List.of(namespace + CacheKeys.FENCE),
+                String.valueOf(lease.token()));
+        if (claimed == null || claimed == 0) {
+            throw new LeaseLostException(lease);
+        }
+    }
+
+    /**
+     * Applies one batch atomically, and only while the generation is still claimed
+     * by {@code lease}: checking the lease after writing would let a node that
+     * stalled past its TTL land a stale batch over the new holder's patches.
+     */
+    private void writeFenced(RedisConnection connection, String namespace, CacheLease.Lease lease,
+                             GenerationWrites.Recorded writes) {
+        if (writes.isEmpty()) {
+            return;
+        }
+        List<byte[]> keysAndArgs = new ArrayList<>(writes.arguments().size() + 2);
+        keysAndArgs.add(key(namespace, CacheKeys.FENCE));
+        keysAndArgs.add(String.valueOf(lease.token()).getBytes(StandardCharsets.UTF_8));
+        keysAndArgs.addAll(writes.arguments());
+        Long applied = evalOnMaster(connection, FENCED_WRITE_SCRIPT, ReturnType.INTEGER, 1,
+                keysAndArgs.toArray(new byte[0][]));
+        if (applied == null || applied == 0) {
+            throw new LeaseLostException(lease);
+        }
+    }
+
+    private Map<String, Person> loadPrevious(RedisConnection connection, String namespace, List<byte[]> keys) {
+        if (keys == null) {
+            return Collections.emptyMap();
+        }
+        byte[][] existing = keys.stream().filter(Objects::nonNull).toArray(byte[][]::new);
+        if (existing.length == 0) {
+            return Collections.emptyMap();
+        }
+
+        List<byte[]> values = connection.stringCommands().mGet(
+                Arrays.stream(existing).map(k -> key(namespace, k)).toArray(byte[][]::new));
+        Map<String, Person> previous = new HashMap<>();
+        for (int i = 0; i < existing.length; i++) {
+            byte[] data = values == null ? null : values.get(i);
+            if (data == null) {
+                continue;
+            }
+            try {
+                previous.put(new String(existing[i], StandardCharsets.UTF_8), payloads.decode(data));
+            } catch (Exception e) {
+                log.error("Failed to deserialize cached person {}", new String(existing[i], StandardCharsets.UTF_8), e);
+            }
+        }
+        return previous;
+    }
+
+    private void unindexPerson(GenerationWrites writes, String namespace, String previousKey,
+                               Person previous, Person current) {
+        String currentKey = CacheKeys.personKey(current.getId(), current.getCpf());
+        boolean keyChanged = !previousKey.equals(currentKey);
+        if (keyChanged) {
+            writes.del(key(namespace, previousKey));
+        }
+        if (keyChanged || !geoIndexable(current)) {
+            writes.zRem(key(namespace, CacheKeys.GEO), previousKey.getBytes(StandardCharsets.UTF_8));
+        }
+        if (previous == null) {
+            if (keyChanged) {
+                writes.sRem(key(namespace, CacheKeys.ALL), previousKey.getBytes(StandardCharsets.UTF_8));
+            }
+            return;
+        }
+
+        List<String> stale = new ArrayList<>(indexKeysOf(previous));
+        if (!keyChanged) {
+            stale.removeAll(indexKeysOf(current));
+        }
+        for (String index : stale) {
+            writes.sRem(key(namespace, index), previousKey.getBytes(StandardCharsets.UTF_8));
+        }
+
+        Set<String> staleTerms = new HashSet<>(SearchTerms.of(previous));
+        if (!keyChanged) {
+            staleTerms.removeAll(SearchTerms.of(current));
+        }
+        if (!staleTerms.isEmpty()) {
+            writes.zRem(key(namespace, CacheKeys.PREFIXES), staleTerms.stream()
+                    .map(term -> prefixMember(term, previousKey))
+                    .toArray(byte[][]::new));
+        }
+    }
+
+    private void writePerson(GenerationWrites writes, String namespace, Person person) {
+        byte[] payload;
+        try {
+            payload = payloads.encode(person);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize person " + person.getId(), e);
+        }
+
+        String personKey = CacheKeys.personKey(person.getId(), person.getCpf());
+        byte[] member = personKey.getBytes(StandardCharsets.UTF_8);
+        writes.set(key(namespace, personKey), payload);
+        writes.hSet(
+                key(namespace, CacheKeys.PERSON_KEYS),
+                String.valueOf(person.getId()).getBytes(StandardCharsets.UTF_8),
+                member
+        );
+
+        for (String index : indexKeysOf(person)) {
+            writes.sAdd(key(namespace, index), member);
+        }
+        byte[][] terms = SearchTerms.of(person).stream()
+                .map(term -> prefixMember(term, personKey))
+                .toArray(byte[][]::new);
+        if (terms.length > 0) {
+            writes.zAdd(key(namespace, CacheKeys.PREFIXES), terms);
+        }
+        if (geoIndexable(person)) {
+            Address address = person.getAddress();
+            writes.geoAdd(key(namespace, CacheKeys.GEO), address.getLongitude(), address.getLatitude(), member);
+        }
+    }
+
+    /**
+     * All members share score 0, so the set is ordered by these bytes: the term,
+     * then NUL, which sorts a whole-term match before any longer term.
+     */
+    private static byte[] prefixMember(String term, String personKey) {
+        return (term + '\0' + personKey).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Coordinates outside what GEOADD accepts are skipped like missing ones, so
+     * one bad row cannot fail a whole rebuild.
+     */
+    private static boolean geoIndexable(Person person) {
+        Address address = person.getAddress();
+        return address != null && GeoDistance.indexable(address.getLatitude(), address.getLongitude());
+    }
+
+    private static void registerIndexes(GenerationWrites writes, String namespace, List<Person> people) {
+        byte[][] indexes = people.stream()
+                .flatMap(person -> indexKeysOf(person).stream())
+                .distinct()
+                .map(index -> index.getBytes(StandardCharsets.UTF_8))
+                .toArray(byte[][]::new);
+        if (indexes.length > 0) {
+            writes.sAdd(key(namespace, CacheKeys.INDEXES), indexes);
+        }
+    }
+
+    /**
+     * Moves {@code current} from the groups it was counted under to its new ones.
+     * A person whose previous payload could not be read is left alone rather than
+     * counted twice; the next rebuild recounts everyone.
+     */
+    private static void adjustCounts(GenerationWrites writes, String namespace, Person previous, Person current,
+                                     LocalDate today) {
+        for (PeopleGroup group : PeopleGroup.values()) {
+            String before = previous == null ? null : group.groupOf(previous, today);
+            String after = group.groupOf(current, today);
+            if (Objects.equals(before, after)) {
+                continue;
+            }
+            byte[] countsKey = key(namespace, group.countsKey());
+            if (before != null) {
+                writes.hIncrBy(countsKey, before.getBytes(StandardCharsets.UTF_8), -1);
+            }
+            if (after != null) {
+                writes.hIncrBy(countsKey, after.getBytes(StandardCharsets.UTF_8), 1);
+            }
+        }
+    }
+
+    private void writeCounts(String namespace, GroupCounts counts) {
+        try (RedisConnection connection = connection()) {
+            for (PeopleGroup group : PeopleGroup.values()) {
+                Map<byte[], byte[]> hash = new HashMap<>();
+                counts.of(group).forEach((value, count) -> hash.put(
+                        value.getBytes(StandardCharsets.UTF_8), String.valueOf(count.sum()).getBytes(StandardCharsets.UTF_8)));
+                if (!hash.isEmpty()) {
+                    connection.hashCommands().hMSet(key(namespace, group.countsKey()), hash);
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of people in the live generation: one SCARD of the all-people index.
+     */
+    public long countAll() {
+        String namespace = CacheKeys.generation(liveGeneration().generation());
+        RedisConnection connection = replicaConnection();
+        try {
+            Long count = connection.setCommands().sCard(key(namespace, CacheKeys.ALL));
+            return count == null ? 0 : count;
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * Per-value counts of one group in the live generation; values whose count
+     * dropped to zero are left out.
+     */
+    public Map<String, Long> getCounts(PeopleGroup group) {
+        String namespace = CacheKeys.generation(liveGeneration().generation());
+        RedisConnection connection = replicaConnection();
+        try {
+            Map<byte[], byte[]> hash = connection.hashCommands().hGetAll(key(namespace, group.countsKey()));
+            Map<String, Long> counts = new TreeMap<>();
+            if (hash != null) {
+                hash.forEach((value, count) -> {
+                    long n = Long.parseLong(new String(count, StandardCharsets.UTF_8));
+                    if (n > 0) {
+                        counts.put(new String(value, StandardCharsets.UTF_8), n);
+                    }
+                });
+            }
+            return counts;
         } finally {
-            customPool.shutdown();
+            connection.close();
         }
+    }
 
-        log.info("All people cached successfully in inactive DB.");
+    /**
+     * What the bloom filter holds for a person: its key, which is what a CPF
+     * lookup reads, and every index it belongs to.
+     */
+    private static List<String> bloomItemsOf(Person person) {
+        List<String> items = indexKeysOf(person);
+        items.add(CacheKeys.personKey(person.getId(), person.getCpf()));
+        return items;
+    }
+
+    private void writeBloomFilter(String namespace, BloomFilter filter) {
+        try (RedisConnection connection = connection()) {
+            connection.stringCommands().set(key(namespace, CacheKeys.BLOOM), filter.toByteArray());
+            connection.hashCommands().hMSet(key(namespace, CacheKeys.BLOOM_META), Map.of(
+                    "bits".getBytes(StandardCharsets.UTF_8), String.valueOf(filter.bitSize()).getBytes(StandardCharsets.UTF_8),
+                    "hashes".getBytes(StandardCharsets.UTF_8), String.valueOf(filter.hashes()).getBytes(StandardCharsets.UTF_8)));
+        }
+        log.info("Bloom filter written: {} bits, {} hashes, {}KB",
+                filter.bitSize(), filter.hashes(), filter.toByteArray().length / 1024);
+    }
+
+    private BloomMeta readBloomMeta(String namespace) {
+        try (RedisConnection connection = connection()) {
+            List<byte[]> meta = connection.hashCommands().hMGet(key(namespace, CacheKeys.BLOOM_META),
+                    "bits".getBytes(StandardCharsets.UTF_8), "hashes".getBytes(StandardCharsets.UTF_8));
+            if (meta == null || meta.get(0) == null || meta.get(1) == null) {
+                return null;
+            }
+            return new BloomMeta(Long.parseLong(new String(meta.get(0), StandardCharsets.UTF_8)),
+                    Integer.parseInt(new String(meta.get(1), StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     * Sets the bits of a patched person and appends its items to the generation's
+     * bloom log, from which other nodes update their copy without re-reading the bitmap.
+     */
+    private static void addToBloomFilter(GenerationWrites writes, String namespace, BloomMeta meta, Person person) {
+        byte[] bloomKey = key(namespace, CacheKeys.BLOOM);
+        List<String> items = bloomItemsOf(person);
+        for (String item : items) {
+            for (long position : BloomFilter.positions(item, meta.bitSize(), meta.hashes())) {
+                writes.setBit(bloomKey, position);
+            }
+        }
+        writes.rPush(key(namespace, CacheKeys.BLOOM_LOG), items.stream()
+                .map(item -> item.getBytes(StandardCharsets.UTF_8))
+                .toArray(byte[][]::new));
+    }
+
+    /**
+     * False only when {@code key} (a person key or an index key) is definitely
+     * absent from the live generation. Without a filter every key might exist.
+     */
+    public boolean mightContain(String key) {
+        if (!bloomEnabled) {
+            return true;
+        }
+        LiveGeneration live = liveGeneration();
+        LoadedBloom loaded = bloom.get();
+        if (loaded == null || loaded.version() < live.version()) {
+            reloadBloomFilter(live);
+        }
+        // A filter of another generation says nothing about this one
+        if (loaded == null || loaded.generation() != live.generation() || loaded.filter() == null) {
+            return true;
+        }
+        return loaded.filter().mightContain(key);
+    }
+
+    /**
+     * Brings the filter up to {@code live} off the request path, one update at a
+     * time. Until it lands, requests keep using the previous filter of the same
+     * generation: a key added by a delta patch since then is missed for a few
+     * seconds, the same staleness the L1 cache already has.
+     */
+    private void reloadBloomFilter(LiveGeneration live) {
+        if (!bloomLoading.compareAndSet(false, true)) {
+            return;
+        }
+        Thread.ofVirtual().name("bloom-loader").start(() -> {
+            try {
+                LoadedBloom loaded = bloom.get();
+                if (loaded == null || loaded.generation() != live.generation()) {
+                    bloom.set(loadBloomFilter(live));
+                } else if (loaded.version() < live.version()) {
+                    bloom.set(applyBloomLog(loaded, live));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not load the bloom filter of generation {}: {}", live.generation(), e.getMessage());
+            } finally {
+                bloomLoading.set(false);
+            }
+        });
+    }
+
+    /**
+     * Reads the whole bitmap, once per generation. The read is pipelined, so it
+     * borrows a pooled connection to the master instead of holding up request
+     * reads queued on the shared one; the log length is read first on the same
+     * node, so every entry it counts is already in the bitmap.
+     */
+    private LoadedBloom loadBloomFilter(LiveGeneration live) {
+        String namespace = CacheKeys.generation(live.generation());
+        List<Object> replies;
+        try (RedisConnection connection = connection()) {
+            connection.openPipeline();
+            connection.listCommands().lLen(key(namespace, CacheKeys.BLOOM_LOG));
+            connection.hashCommands().hMGet(key(namespace, CacheKeys.BLOOM_META),
+                    "bits".getBytes(StandardCharsets.UTF_8), "hashes".getBytes(StandardCharsets.UTF_8));
+            connection.stringCommands().get(key(namespace, CacheKeys.BLOOM));
+            replies = connection.closePipeline();
+        }
+
+        long logged = replies.get(0) == null ? 0 : (Long) replies.get(0);
+        @SuppressWarnings("unchecked")
+        List<byte[]> meta = (List<byte[]>) replies.get(1);
+        byte[] bitmap = (byte[]) replies.get(2);
+        BloomFilter filter = null;
+        if (meta != null && meta.get(0) != null && meta.get(1) != null && bitmap != null) {
+            filter = BloomFilter.of(bitmap,
+                    Long.parseLong(new String(meta.get(0), StandardCharsets.UTF_8)),
+                    Integer.parseInt(new String(meta.get(1), StandardCharsets.UTF_8)));
+        }
+        return new LoadedBloom(live.generation(), live.version(), filter, logged);
+    }
+
+    /**
+     * Adds the items delta patches logged since {@code loaded} to the filter in
+     * place, so a delta costs the few keys it touched rather than the bitmap.
+     * Versions are only bumped once replicas have the patch, log included.
+     */
+    private LoadedBloom applyBloomLog(LoadedBloom loaded, LiveGeneration live) {
+        if (loaded.filter() == null) {
+            return new LoadedBloom(loaded.generation(), live.version(), null, loaded.logged());
+        }
+        List<byte[]> items;
+        RedisConnection connection = replicaConnection();
+        try {
+            items = connection.listCommands().lRange(
+                    key(CacheKeys.generation(live.generation()), CacheKeys.BLOOM_LOG), loaded.logged(), -1);
+        } finally {
+            connection.close();
+        }
+        if (items == null) {
+            items = List.of();
+        }
+        items.forEach(item -> loaded.filter().add(new String(item, StandardCharsets.UTF_8)));
+        return new LoadedBloom(loaded.generation(), live.version(), loaded.filter(), loaded.logged() + items.size());
+    }
+
+    private static List<String> indexKeysOf(Person person) {
+        List<String> keys = new ArrayList<>(4);
+        keys.add(CacheKeys.ALL);
+
+        Address addr = person.getAddress();
+        if (addr != null) {
+            if (addr.getCity() != null) {
+                keys.add(CacheKeys.byCity(addr.getCity()));
+            }
+            if (addr.getState() != null) {
+                keys.add(CacheKeys.byState(addr.getState()));
+            }
+            if (addr.getCountry() != null) {
+                keys.add(CacheKeys.byCountry(addr.getCountry()));
+            }
+        }
+        return keys;
+    }
+
+    private static byte[] key(String namespace, String name) {
+        return (namespace + name).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] key(String namespace, byte[] name) {
+        byte[] prefix = namespace.getBytes(StandardCharsets.UTF_8);
+        byte[] key = Arrays.copyOf(prefix, prefix.length + name.length);
+        System.arraycopy(name, 0, key, prefix.length, name.length);
+        return key;
+    }
+
+    private RedisConnection connection() {
+        return Objects.requireNonNull(cacheTemplate.getConnectionFactory()).getConnection();
+    }
+
+    private RedisConnection replicaConnection() {
+        return Objects.requireNonNull(replicaTemplate.getConnectionFactory()).getConnection();
+    }
+
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
     }
 
     public Set<String> getIndexMembers(String indexName) {
-        RedisTemplate<String, Object> template = getActiveRedisTemplate();
-        RedisConnection connection = Objects.requireNonNull(template.getConnectionFactory()).getConnection();
+        String namespace = CacheKeys.generation(liveGeneration().generation());
+        RedisConnection connection = replicaConnection();
         try {
-            Set<byte[]> members = connection.setCommands()
-                    .sMembers(indexName.getBytes(StandardCharsets.UTF_8));
+            Set<byte[]> members = connection.setCommands().sMembers(key(namespace, indexName));
             if (members == null || members.isEmpty()) {
                 return Collections.emptySet();
             }
@@ -210,45 +1202,547 @@ public class RedisCacheService {
         }
     }
 
-    public List<Person> getPeopleByKeys(Collection<String> keys) {
-        if (keys == null || keys.isEmpty()) {
+    public List<Person> getPeopleByIndex(String indexName) {
+        return decodePeople(getPayloadsByIndex(indexName));
+    }
+
+    public List<byte[]> getJsonByIndex(String indexName) {
+        return toJson(getPayloadsByIndex(indexName));
+    }
+
+    public Person getPersonByKey(String key) {
+        byte[] payload = getPayloadByKey(key);
+        return payload == null ? null : decodePeople(List.of(payload)).stream().findFirst().orElse(null);
+    }
+
+    public byte[] getJsonByKey(String key) {
+        byte[] payload = getPayloadByKey(key);
+        return payload == null ? null : toJson(List.of(payload)).stream().findFirst().orElse(null);
+    }
+
+    /**
+     * JSON of each key in one MGET, positionally: null where a key is missing or
+     * its payload cannot be read.
+     */
+    public List<byte[]> getJsonByKeys(List<String> keys) {
+        if (keys.isEmpty()) {
             return Collections.emptyList();
         }
 
-        RedisTemplate<String, Object> template = getActiveRedisTemplate();
-        RedisConnection connection = Objects.requireNonNull(template.getConnectionFactory()).getConnection();
-        List<Person> people = new ArrayList<>();
+        String namespace = CacheKeys.generation(liveGeneration().generation());
+        List<byte[]> values;
+        RedisConnection connection = replicaConnection();
+        try {
+            values = connection.stringCommands().mGet(keys.stream()
+                    .map(k -> key(namespace, k))
+                    .toArray(byte[][]::new));
+        } finally {
+            connection.close();
+        }
 
+        List<byte[]> json = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] data = values == null ? null : values.get(i);
+            json.add(data == null ? null : toJson(List.of(data)).stream().findFirst().orElse(null));
+        }
+        return json;
+    }
+
+    private byte[] getPayloadByKey(String key) {
+        return getPayloadByKey(CacheKeys.generation(liveGeneration().generation()), key);
+    }
+
+    private byte[] getPayloadByKey(String namespace, String key) {
+        RedisConnection connection = replicaConnection();
         try {
-            connection.openPipeline();
+            return connection.stringCommands().get(key(namespace, key));
+        } finally {
+            connection.close();
+        }
+    }
+
+    private List<byte[]> getPayloadsByIndex(String indexName) {
+        List<byte[]> payloads = new ArrayList<>();
+        forEachIndexChunk(indexName, indexChunkSize, payloads::addAll);
+        return payloads;
+    }
+
+    /**
+     * Pages through an index of the generation the cursor started on, exactly
+     * {@code limit} people per page. Retained generations are immutable, so a
+     * cursor stays valid across a swap until its generation is retired; on the
+     * live generation a delta patch resizing the set can repeat a person on a
+     * later page, as with any SSCAN, but never skip one. Null when the
+     * generation is gone from Redis; an empty page means the index is empty.
+     */
+    public PersonPage scanIndex(String indexName, String cursor, int limit) {
+        long generation;
+        String scanCursor = INITIAL_CURSOR;
+        String batchEnd = "";
+        String after = "";
+        if (cursor == null) {
+            generation = liveGeneration().generation();
+        } else {
+            String[] parts = cursor.split("-", 4);
+            try {
+                generation = Long.parseLong(parts[0]);
+                scanCursor = parts[1];
+            } catch (RuntimeException e) {
+                throw new InvalidCursorException(cursor);
+            }
+            if (parts.length == 4) {
+                batchEnd = parts[2];
+                after = parts[3];
+            }
+            requireScanCursor(scanCursor, cursor);
+            if (!after.isEmpty()) {
+                requireScanCursor(batchEnd, cursor);
+            }
+            requireReadable(generation, cursor);
+        }
+
+        RedisConnection connection = replicaConnection();
+        try {
+            IndexChunk chunk = fetchIndexChunk(connection, CacheKeys.generation(generation), indexName,
+                    scanCursor, limit, limit, batchEnd, after);
+            if (chunk == null) {
+                return null;
+            }
+            String nextCursor = null;
+            if (!chunk.finished()) {
+                nextCursor = generation + "-" + chunk.cursor()
+                        + (chunk.after().isEmpty() ? "" : "-" + chunk.batchEnd() + "-" + chunk.after());
+            }
+            return new PersonPage(decodePeople(chunk.payloads()), nextCursor);
+        } finally {
+            connection.close();
+        }
+    }
+
+    public boolean streamIndex(String indexName, int chunkSize, Consumer<List<byte[]>> sink) {
+        return forEachIndexChunk(indexName, chunkSize, payloads -> sink.accept(toJson(payloads)));
+    }
+
+    private boolean forEachIndexChunk(String indexName, int chunkSize, Consumer<List<byte[]>> sink) {
+        String namespace = CacheKeys.generation(liveGeneration().generation());
+        RedisConnection connection = replicaConnection();
+        try {
+            boolean found = false;
+            IndexChunk chunk = new IndexChunk(INITIAL_CURSOR, "", "", Collections.emptyList());
+            do {
+                chunk = fetchIndexChunk(connection, namespace, indexName, chunk.cursor(), chunkSize, 0, "", "");
+                if (chunk == null) {
+                    return false;
+                }
+                if (!chunk.payloads().isEmpty()) {
+                    found = true;
+                    sink.accept(chunk.payloads());
+                }
+            } while (!chunk.finished());
+            return found;
+        } finally {
+            connection.close();
+        }
+    }
 
-            List<byte[]> byteKeys = keys.stream()
-                    .map(k -> k.getBytes(StandardCharsets.UTF_8))
-                    .toList();
+    /**
+     * Runs SSCAN + MGET steps of an index on the server, so the member keys
+     * never travel to the application and a huge set is read in bounded steps.
+     * A {@code limit} of 0 takes a single step of whatever size SSCAN returns;
+     * otherwise exactly {@code limit} members are read, resuming after
+     * {@code after} within the batch at {@code cursor} as long as that batch
+     * still ends at {@code batchEnd}. Null when the generation is gone from Redis.
+     */
+    private IndexChunk fetchIndexChunk(RedisConnection connection, String namespace, String indexName,
+                                       String cursor, int count, int limit, String batchEnd, String after) {
+        byte[][] keysAndArgs = {
+                key(namespace, indexName),
+                key(namespace, CacheKeys.PERSON_KEYS),
+                cursor.getBytes(StandardCharsets.UTF_8),
+                String.valueOf(count).getBytes(StandardCharsets.UTF_8),
+                namespace.getBytes(StandardCharsets.UTF_8),
+                String.valueOf(limit).getBytes(StandardCharsets.UTF_8),
+                after.getBytes(StandardCharsets.UTF_8),
+                batchEnd.getBytes(StandardCharsets.UTF_8)
+        };
 
-            connection.stringCommands().mGet(byteKeys.toArray(new byte[0][]));
+        List<byte[]> reply = evalScript(connection, FETCH_INDEX_SCRIPT, ReturnType.MULTI, 2, keysAndArgs);
+        if (reply.isEmpty()) {
+            return null;
+        }
 
-            List<Object> pipelineResults = connection.closePipeline();
+        String nextCursor = new String(reply.get(0), StandardCharsets.UTF_8);
+        String nextAfter = new String(reply.get(1), StandardCharsets.UTF_8);
+        String nextBatchEnd = new String(reply.get(2), StandardCharsets.UTF_8);
+        List<byte[]> payloads = new ArrayList<>(reply.size() - 3);
+        for (int i = 3; i < reply.size(); i++) {
+            if (reply.get(i) != null) {
+                payloads.add(reply.get(i));
+            }
+        }
+        return new IndexChunk(nextCursor, nextBatchEnd, nextAfter, payloads);
+    }
 
-            if (!pipelineResults.isEmpty() && pipelineResults.get(0) instanceof List<?>) {
-                @SuppressWarnings("unchecked")
-                List<byte[]> rawResults = (List<byte[]>) pipelineResults.get(0);
+    /**
+     * One page of a compound search, as JSON, from the generation the cursor
+     * started on. The smallest group of index sets is scanned on the server and
+     * each member checked against the other groups, so only matching payloads
+     * come back and no set is materialized whole. A page holds at most
+     * {@code limit} people, fewer when matches are sparse and the scan budget
+     * runs out first; only a null next cursor means the end. Null when the
+     * generation is gone from Redis.
+     */
+    public JsonPage searchPage(List<List<String>> indexGroups, String cursor, int limit) {
+        long generation;
+        List<String> position = List.of("0", "0", INITIAL_CURSOR, "", "");
+        if (cursor == null) {
+            generation = liveGeneration().generation();
+        } else {
+            String[] parts = cursor.split("-", 6);
+            boolean valid;
+            try {
+                generation = Long.parseLong(parts[0]);
+                int group = Integer.parseInt(parts[1]);
+                int key = Integer.parseInt(parts[2]);
+                valid = parts.length == 6 && group >= 1 && group <= indexGroups.size()
+                        && key >= 1 && key <= indexGroups.get(group - 1).size();
+            } catch (RuntimeException e) {
+                throw new InvalidCursorException(cursor);
+            }
+            if (!valid) {
+                throw new InvalidCursorException(cursor);
+            }
+            requireScanCursor(parts[3], cursor);
+            if (!parts[5].isEmpty()) {
+                requireScanCursor(parts[4], cursor);
+            }
+            requireReadable(generation, cursor);
+            position = Arrays.asList(parts).subList(1, 6);
+        }
 
-                for (byte[] data : rawResults) {
-                    if (data != null) {
-                        try {
-                            Person person = objectMapper.readValue(data, Person.class);
-                            people.add(person);
-                        } catch (Exception e) {
-                            log.error("Failed to deserialize person from Redis", e);
-                        }
-                    }
+        String namespace = CacheKeys.generation(generation);
+        SearchCall call = searchCall(namespace, indexGroups, "fetch");
+        call.arg(String.valueOf(limit));
+        call.arg(String.valueOf(Math.max(limit * SEARCH_SCAN_PER_RESULT, indexChunkSize)));
+        position.forEach(call::arg);
+
+        List<byte[]> reply;
+        RedisConnection connection = replicaConnection();
+        try {
+            reply = evalScript(connection, SEARCH_INDEX_SCRIPT, ReturnType.MULTI, call.numKeys(), call.keysAndArgs());
+        } finally {
+            connection.close();
+        }
+        if (reply.isEmpty()) {
+            return null;
+        }
+        String next = new String(reply.get(0), StandardCharsets.UTF_8);
+        return new JsonPage(toJson(reply.subList(1, reply.size())), next.isEmpty() ? null : generation + "-" + next);
+    }
+
+    /**
+     * Size of a compound search in the live generation; no payload is read.
+     * -1 when the generation is gone from Redis.
+     */
+    public long countMatches(List<List<String>> indexGroups) {
+        SearchCall call = searchCall(CacheKeys.generation(liveGeneration().generation()), indexGroups, "count");
+        RedisConnection connection = replicaConnection();
+        try {
+            Long count = evalScript(connection, SEARCH_INDEX_SCRIPT, ReturnType.INTEGER, call.numKeys(), call.keysAndArgs());
+            return count == null ? -1 : count;
+        } finally {
+            connection.close();
+        }
+    }
+
+    private SearchCall searchCall(String namespace, List<List<String>> indexGroups, String mode) {
+        SearchCall call = new SearchCall(new ArrayList<>(), new ArrayList<>());
+        call.keys().add(key(namespace, CacheKeys.PERSON_KEYS));
+        indexGroups.forEach(group -> group.forEach(index -> call.keys().add(key(namespace, index))));
+        call.arg(mode);
+        call.arg(namespace);
+        call.arg(String.valueOf(indexGroups.size()));
+        indexGroups.forEach(group -> call.arg(String.valueOf(group.size())));
+        return call;
+    }
+
+    /**
+     * SSCAN cursors are unsigned 64-bit integers; anything else would come back
+     * from Redis as an error rather than as a bad request.
+     */
+    private static void requireScanCursor(String value, String cursor) {
+        try {
+            Long.parseUnsignedLong(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    /**
+     * A cursor may only read the live generation or one still retained.
+     */
+    private void requireReadable(long generation, String cursor) {
+        if (generation != liveGeneration().generation() && !retainedGenerations().contains(generation)) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    private <T> T evalScript(RedisConnection connection, RedisScript<?> script, ReturnType returnType,
+                             int numKeys, byte[][] keysAndArgs) {
+        return readOnlyScripts
+                ? evalReadOnly(connection, script, returnType, numKeys, keysAndArgs)
+                : evalOnMaster(connection, script, returnType, numKeys, keysAndArgs);
+    }
+
+    /**
+     * Runs a read-only script with {@code EVALSHA_RO}, which Lettuce may route to a
+     * replica. Servers older than Redis 7 reject it, after which every call goes
+     * through a plain {@code EVALSHA} on the master.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T evalReadOnly(RedisConnection connection, RedisScript<?> script, ReturnType returnType,
+                               int numKeys, byte[][] keysAndArgs) {
+        RedisClusterAsyncCommands<byte[], byte[]> commands =
+                (RedisClusterAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+        byte[][] keys = Arrays.copyOfRange(keysAndArgs, 0, numKeys);
+        byte[][] args = Arrays.copyOfRange(keysAndArgs, numKeys, keysAndArgs.length);
+        ScriptOutputType outputType = returnType == ReturnType.INTEGER ? ScriptOutputType.INTEGER : ScriptOutputType.MULTI;
+        long timeout = replicaTemplate.getRequiredConnectionFactory() instanceof LettuceConnectionFactory factory
+                ? factory.getTimeout() : 60_000;
+        try {
+            try {
+                return (T) LettuceFutures.awaitOrCancel(
+                        commands.evalshaReadOnly(script.getSha1(), outputType, keys, args),
+                        timeout, TimeUnit.MILLISECONDS);
+            } catch (RedisNoScriptException e) {
+                return (T) LettuceFutures.awaitOrCancel(
+                        commands.evalReadOnly(script.getScriptAsString().getBytes(StandardCharsets.UTF_8),
+                                outputType, keys, args),
+                        timeout, TimeUnit.MILLISECONDS);
+            }
+        } catch (RedisCommandExecutionException e) {
+            if (e.getMessage() == null || !e.getMessage().contains("unknown command")) {
+                throw e;
+            }
+            log.warn("Redis does not support EVALSHA_RO, index reads will run on the master");
+            readOnlyScripts = false;
+            return evalOnMaster(connection, script, returnType, numKeys, keysAndArgs);
+        }
+    }
+
+    private <T> T evalOnMaster(RedisConnection connection, RedisScript<?> script, ReturnType returnType,
+                               int numKeys, byte[][] keysAndArgs) {
+        try {
+            return connection.scriptingCommands().evalSha(script.getSha1(), returnType, numKeys, keysAndArgs);
+        } catch (RuntimeException e) {
+            if (!isNoScriptError(e)) {
+                throw e;
+            }
+            return connection.scriptingCommands().eval(
+                    script.getScriptAsString().getBytes(StandardCharsets.UTF_8), returnType, numKeys, keysAndArgs);
+        }
+    }
+
+    private static boolean isNoScriptError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A single MGET: it runs on the shared multiplexed connection instead of
+     * borrowing a dedicated one from the pool the way a pipeline would.
+     */
+    public List<Person> getPeopleByKeys(Collection<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        String namespace = CacheKeys.generation(liveGeneration().generation());
+        RedisConnection connection = replicaConnection();
+        try {
+            byte[][] byteKeys = keys.stream()
+                    .map(k -> key(namespace, k))
+                    .toArray(byte[][]::new);
+            return decodePeople(connection.stringCommands().mGet(byteKeys));
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * People within {@code radiusKm} of a point, nearest first: one GEOSEARCH for
+     * the members and their distances, one MGET for the payloads. Null when the
+     * live generation has no geo index (built before it existed), so callers can
+     * fall back to the database.
+     */
+    public List<NearbyPerson> findNearby(double latitude, double longitude, double radiusKm, int limit) {
+        String namespace = CacheKeys.generation(liveGeneration().generation());
+        byte[] geoKey = key(namespace, CacheKeys.GEO);
+        RedisConnection connection = replicaConnection();
+        try {
+            GeoResults<GeoLocation<byte[]>> results = connection.geoCommands().geoSearch(geoKey,
+                    GeoReference.fromCoordinate(longitude, latitude),
+                    GeoShape.byRadius(new Distance(radiusKm, Metrics.KILOMETERS)),
+                    GeoSearchCommandArgs.newGeoSearchArgs().includeDistance().sortAscending().limit(limit));
+            if (results == null || results.getContent().isEmpty()) {
+                return Boolean.TRUE.equals(connection.keyCommands().exists(geoKey)) ? Collections.emptyList() : null;
+            }
+
+            List<GeoResult<GeoLocation<byte[]>>> matches = results.getContent();
+            List<byte[]> values = connection.stringCommands().mGet(matches.stream()
+                    .map(match -> key(namespace, match.getContent().getName()))
+                    .toArray(byte[][]::new));
+            List<NearbyPerson> nearby = new ArrayList<>(matches.size());
+            for (int i = 0; i < matches.size(); i++) {
+                byte[] data = values == null ? null : values.get(i);
+                if (data == null) {
+                    continue;
+                }
+                try {
+                    nearby.add(new NearbyPerson(matches.get(i).getDistance().getValue(), payloads.decode(data)));
+                } catch (Exception e) {
+                    log.error("Failed to deserialize person from Redis", e);
                 }
             }
+            return nearby;
         } finally {
             connection.close();
         }
+    }
+
+    /**
+     * People with a term starting with {@code term} (already normalized), as JSON,
+     * in one read-only script call: a bounded {@code ZRANGEBYLEX} plus an MGET.
+     * Null when the live generation has no prefix index, so callers can fall back
+     * to the database.
+     */
+    public List<byte[]> autocompleteJson(String term, int limit) {
+        String namespace = CacheKeys.generation(liveGeneration().generation());
+        byte[] prefix = term.getBytes(StandardCharsets.UTF_8);
+        byte[] min = new byte[prefix.length + 1];
+        min[0] = '[';
+        System.arraycopy(prefix, 0, min, 1, prefix.length);
+        // 0xFF never occurs in UTF-8, so it sorts after every term with this prefix
+        byte[] max = Arrays.copyOf(min, min.length + 1);
+        max[0] = '(';
+        max[max.length - 1] = (byte) 0xFF;
+
+        RedisConnection connection = replicaConnection();
+        try {
+            List<byte[]> reply = evalScript(connection, AUTOCOMPLETE_SCRIPT, ReturnType.MULTI, 1, new byte[][]{
+                    key(namespace, CacheKeys.PREFIXES),
+                    namespace.getBytes(StandardCharsets.UTF_8),
+                    min,
+                    max,
+                    String.valueOf(limit).getBytes(StandardCharsets.UTF_8)});
+            return reply == null ? null : toJson(reply);
+        } finally {
+            connection.close();
+        }
+    }
+
+    private List<byte[]> toJson(List<byte[]> rawResults) {
+        if (rawResults == null) {
+            return Collections.emptyList();
+        }
+
+        List<byte[]> json = new ArrayList<>(rawResults.size());
+        for (byte[] data : rawResults) {
+            if (data != null) {
+                try {
+                    json.add(payloads.toJson(data));
+                } catch (Exception e) {
+                    log.error("Failed to read person payload from Redis", e);
+                }
+            }
+        }
+        return json;
+    }
+
+    private List<Person> decodePeople(List<byte[]> rawResults) {
+        if (rawResults == null) {
+            return Collections.emptyList();
+        }
 
+        List<Person> people = new ArrayList<>(rawResults.size());
+        for (byte[] data : rawResults) {
+            if (data != null) {
+                try {
+                    Person person = payloads.decode(data);
+                    people.add(person);
+                } catch (Exception e) {
+                    log.error("Failed to deserialize person from Redis", e);
+                }
+            }
+        }
         return people;
     }
+
+    /**
+     * Counts of one rebuild, added to by every writer thread and written once at the end.
+     */
+    private static final class GroupCounts {
+        private final LocalDate today;
+        private final Map<PeopleGroup, Map<String, LongAdder>> counts = new EnumMap<>(PeopleGroup.class);
+
+        GroupCounts(LocalDate today) {
+            this.today = today;
+            for (PeopleGroup group : PeopleGroup.values()) {
+                counts.put(group, new ConcurrentHashMap<>());
+            }
+        }
+
+        void addAll(List<Person> people) {
+            for (Person person : people) {
+                for (PeopleGroup group : PeopleGroup.values()) {
+                    String value = group.groupOf(person, today);
+                    if (value != null) {
+                        counts.get(group).computeIfAbsent(value, v -> new LongAdder()).increment();
+                    }
+                }
+            }
+        }
+
+        Map<String, LongAdder> of(PeopleGroup group) {
+            return counts.get(group);
+        }
+    }
+
+    private record SearchCall(List<byte[]> keys, List<byte[]> args) {
+        void arg(String value) {
+            args.add(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        int numKeys() {
+            return keys.size();
+        }
+
+        byte[][] keysAndArgs() {
+            List<byte[]> all = new ArrayList<>(keys);
+            all.addAll(args);
+            return all.toArray(new byte[0][]);
+        }
+    }
+
+    private record IndexChunk(String cursor, String batchEnd, String after, List<byte[]> payloads) {
+        boolean finished() {
+            return INITIAL_CURSOR.equals(cursor) && after.isEmpty();
+        }
+    }
+
+    private record BloomMeta(long bitSize, int hashes) {
+    }
+
+    private record LoadedBloom(long generation, long version, BloomFilter filter, long logged) {
+    }
+
+    private record LiveGeneration(long generation, long version) {
+        static LiveGeneration newest(LiveGeneration current, LiveGeneration candidate) {
+            return current == null || candidate.version() >= current.version() ? candidate : current;
+        }
+    }
 }
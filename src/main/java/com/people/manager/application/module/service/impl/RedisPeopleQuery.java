@@ -1,60 +1,357 @@
 package com.people.manager.application.module.service.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.people.manager.application.module.infra.CacheKeys;
+import com.people.manager.application.module.infra.InvalidCursorException;
+import com.people.manager.application.module.infra.NearCache;
+import com.people.manager.application.module.infra.SearchTerms;
+import com.people.manager.application.module.infra.SingleFlight;
+import com.people.manager.application.module.model.NearbyPerson;
 import com.people.manager.application.module.model.Person;
+import com.people.manager.application.module.model.PersonPage;
+import com.people.manager.application.module.service.CpfBatch;
+import com.people.manager.application.module.service.JsonPage;
 import com.people.manager.application.module.service.PeopleDataProvider;
+import com.people.manager.application.module.service.PeopleFilter;
+import com.people.manager.application.module.service.PeopleGroup;
 import com.people.manager.application.module.service.PeopleQuery;
+import com.people.manager.application.module.service.PeopleSearch;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Primary
 @Service
 public class RedisPeopleQuery implements PeopleQuery {
+    private static final String REDIS_CURSOR = "r:";
+    private static final String DATABASE_CURSOR = "d:";
+    private static final String JSON_PREFIX = "json:";
+    private static final String COUNT_PREFIX = "count:";
+    private static final String AUTOCOMPLETE_PREFIX = "autocomplete:";
 
     private final RedisCacheService redis;
     private final PeopleDataProvider fallback;
+    private final NearCache nearCache;
+    private final SingleFlight singleFlight;
+    private final ObjectMapper objectMapper;
+    private final int streamChunkSize;
 
     public RedisPeopleQuery(RedisCacheService redis,
-                            PeopleDataProvider fallback) {
+                            PeopleDataProvider fallback,
+                            NearCache nearCache,
+                            SingleFlight singleFlight,
+                            ObjectMapper objectMapper,
+                            @Value("${api.stream.chunk-size:500}") int streamChunkSize) {
         this.redis = redis;
         this.fallback = fallback;
+        this.nearCache = nearCache;
+        this.singleFlight = singleFlight;
+        this.objectMapper = objectMapper;
+        this.streamChunkSize = streamChunkSize;
     }
 
     @Override
     public List<Person> findAll() {
-        var keys = redis.getIndexMembers(CacheKeys.ALL);
-        return keys.isEmpty() ? fallback.findAll() : redis.getPeopleByKeys(keys);
+        if (!redis.mightContain(CacheKeys.ALL)) {
+            return List.of();
+        }
+        return cached(CacheKeys.ALL, () -> {
+            var people = redis.getPeopleByIndex(CacheKeys.ALL);
+            return people.isEmpty() ? fallback.findAll() : people;
+        });
     }
 
     @Override
     public Person findByCpf(String cpf) {
-        var keys = redis.getIndexMembers(CacheKeys.byCpf(cpf));
-        if (keys.isEmpty()) return fallback.findByCpf(cpf);
-        return redis.getPeopleByKeys(keys).stream().findFirst().orElse(null);
+        if (!redis.mightContain(CacheKeys.personByCpf(cpf))) {
+            return null;
+        }
+        return cached(CacheKeys.personByCpf(cpf), () -> {
+            Person person = redis.getPersonByKey(CacheKeys.personByCpf(cpf));
+            return person != null ? person : fallback.findByCpf(cpf);
+        });
     }
 
     @Override
     public List<Person> findByCity(String city) {
-        var keys = redis.getIndexMembers(CacheKeys.byCity(city));
-        return keys.isEmpty() ? fallback.findByCity(city)
-                : redis.getPeopleByKeys(keys);
+        if (!redis.mightContain(CacheKeys.byCity(city))) {
+            return List.of();
+        }
+        return cached(CacheKeys.byCity(city), () -> {
+            var people = redis.getPeopleByIndex(CacheKeys.byCity(city));
+            return people.isEmpty() ? fallback.findByCity(city) : people;
+        });
     }
 
     @Override
     public List<Person> findByState(String state) {
-        var keys = redis.getIndexMembers(CacheKeys.byState(state));
-        return keys.isEmpty() ? fallback.findByState(state)
-                : redis.getPeopleByKeys(keys);
+        if (!redis.mightContain(CacheKeys.byState(state))) {
+            return List.of();
+        }
+        return cached(CacheKeys.byState(state), () -> {
+            var people = redis.getPeopleByIndex(CacheKeys.byState(state));
+            return people.isEmpty() ? fallback.findByState(state) : people;
+        });
     }
 
     @Override
     public List<Person> findByCountry(String country) {
-        var keys = redis.getIndexMembers(CacheKeys.byCountry(country));
-        return keys.isEmpty() ? fallback.findByCountry(country)
-                : redis.getPeopleByKeys(keys);
+        if (!redis.mightContain(CacheKeys.byCountry(country))) {
+            return List.of();
+        }
+        return cached(CacheKeys.byCountry(country), () -> {
+            var people = redis.getPeopleByIndex(CacheKeys.byCountry(country));
+            return people.isEmpty() ? fallback.findByCountry(country) : people;
+        });
+    }
+
+    @Override
+    public PersonPage findPage(PeopleFilter filter, String cursor, int limit) {
+        if (!redis.mightContain(filter.indexKey())) {
+            return new PersonPage(List.of(), null);
+        }
+        if (cursor == null || cursor.startsWith(REDIS_CURSOR)) {
+            PersonPage page = redis.scanIndex(filter.indexKey(),
+                    cursor == null ? null : cursor.substring(REDIS_CURSOR.length()), limit);
+            if (page != null) {
+                return new PersonPage(page.items(),
+                        page.nextCursor() == null ? null : REDIS_CURSOR + page.nextCursor());
+            }
+            if (cursor != null) {
+                throw new InvalidCursorException(cursor);
+            }
+        } else if (!cursor.startsWith(DATABASE_CURSOR)) {
+            throw new InvalidCursorException(cursor);
+        }
+
+        long afterId = parseDatabaseCursor(cursor);
+        List<Person> people = fallback.findPageAfter(filter, afterId, limit);
+        String nextCursor = people.size() < limit ? null
+                : DATABASE_CURSOR + people.get(people.size() - 1).getId();
+        return new PersonPage(people, nextCursor);
+    }
+
+    @Override
+    public List<byte[]> findJson(PeopleFilter filter) {
+        if (!redis.mightContain(filter.indexKey())) {
+            return List.of();
+        }
+        return cached(JSON_PREFIX + filter.indexKey(), () -> {
+            var json = redis.getJsonByIndex(filter.indexKey());
+            return json.isEmpty() ? toJson(fallbackFind(filter)) : json;
+        });
+    }
+
+    @Override
+    public byte[] findJsonByCpf(String cpf) {
+        if (!redis.mightContain(CacheKeys.personByCpf(cpf))) {
+            return null;
+        }
+        return cached(JSON_PREFIX + CacheKeys.personByCpf(cpf), () -> {
+            byte[] json = redis.getJsonByKey(CacheKeys.personByCpf(cpf));
+            if (json != null) return json;
+            Person person = fallback.findByCpf(cpf);
+            return person == null ? null : toJson(person);
+        });
+    }
+
+    /**
+     * Cached people come from one MGET, the misses from one {@code cpf in (...)}
+     * query. CPFs the bloom filter rules out are not looked up at all, as in
+     * {@link #findJsonByCpf}.
+     */
+    @Override
+    public CpfBatch findJsonByCpfs(Collection<String> cpfs) {
+        List<String> requested = cpfs.stream()
+                .filter(cpf -> cpf != null && !cpf.isBlank())
+                .distinct()
+                .toList();
+        List<String> candidates = requested.stream()
+                .filter(cpf -> redis.mightContain(CacheKeys.personByCpf(cpf)))
+                .toList();
+
+        Map<String, byte[]> found = new HashMap<>();
+        List<byte[]> cached = redis.getJsonByKeys(candidates.stream().map(CacheKeys::personByCpf).toList());
+        List<String> misses = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            if (cached.get(i) != null) {
+                found.put(candidates.get(i), cached.get(i));
+            } else {
+                misses.add(candidates.get(i));
+            }
+        }
+        if (!misses.isEmpty()) {
+            fallback.findByCpfs(misses).forEach(person -> found.put(person.getCpf(), toJson(person)));
+        }
+
+        List<byte[]> json = new ArrayList<>(found.size());
+        List<String> notFound = new ArrayList<>();
+        for (String cpf : requested) {
+            byte[] person = found.get(cpf);
+            if (person != null) {
+                json.add(person);
+            } else {
+                notFound.add(cpf);
+            }
+        }
+        return new CpfBatch(json, notFound);
+    }
+
+    @Override
+    public void streamJson(PeopleFilter filter, Consumer<List<byte[]>> sink) {
+        if (!redis.mightContain(filter.indexKey())) {
+            return;
+        }
+        if (redis.streamIndex(filter.indexKey(), streamChunkSize, sink)) {
+            return;
+        }
+
+        long afterId = 0;
+        List<Person> chunk;
+        do {
+            chunk = fallback.findPageAfter(filter, afterId, streamChunkSize);
+            if (chunk.isEmpty()) {
+                return;
+            }
+            sink.accept(toJson(chunk));
+            afterId = chunk.get(chunk.size() - 1).getId();
+        } while (chunk.size() == streamChunkSize);
+    }
+
+    /**
+     * Pages come from Redis while the generation is there, even when empty; the
+     * database is only paged through once Redis has nothing to answer from.
+     */
+    @Override
+    public JsonPage searchJson(PeopleSearch search, String cursor, int limit) {
+        if (definitelyEmpty(search)) {
+            return new JsonPage(List.of(), null);
+        }
+        if (cursor == null || cursor.startsWith(REDIS_CURSOR)) {
+            JsonPage page = redis.searchPage(search.indexGroups(),
+                    cursor == null ? null : cursor.substring(REDIS_CURSOR.length()), limit);
+            if (page != null) {
+                return new JsonPage(page.items(),
+                        page.nextCursor() == null ? null : REDIS_CURSOR + page.nextCursor());
+            }
+            if (cursor != null) {
+                throw new InvalidCursorException(cursor);
+            }
+        } else if (!cursor.startsWith(DATABASE_CURSOR)) {
+            throw new InvalidCursorException(cursor);
+        }
+
+        long afterId = parseDatabaseCursor(cursor);
+        List<Person> people = fallback.searchPageAfter(search, afterId, limit);
+        String nextCursor = people.size() < limit ? null
+                : DATABASE_CURSOR + people.get(people.size() - 1).getId();
+        return new JsonPage(toJson(people), nextCursor);
+    }
+
+    @Override
+    public long count(PeopleSearch search) {
+        if (definitelyEmpty(search)) {
+            return 0;
+        }
+        return cached(COUNT_PREFIX + search.cacheKey(), () -> {
+            long count = redis.countMatches(search.indexGroups());
+            return count >= 0 ? count : fallback.count(search);
+        });
     }
-}
 
+    @Override
+    public long countAll() {
+        return cached(COUNT_PREFIX + CacheKeys.ALL, () -> {
+            long count = redis.countAll();
+            return count > 0 ? count : fallback.countAll();
+        });
+    }
+
+    @Override
+    public Map<String, Long> countBy(PeopleGroup group) {
+        return cached(COUNT_PREFIX + group.countsKey(), () -> {
+            Map<String, Long> counts = redis.getCounts(group);
+            return counts.isEmpty() ? fallback.countBy(group) : counts;
+        });
+    }
+
+    /**
+     * Not kept in L1: arbitrary coordinates would rarely hit, and one GEOSEARCH
+     * plus one MGET is already cheap.
+     */
+    @Override
+    public List<NearbyPerson> findNearby(double latitude, double longitude, double radiusKm, int limit) {
+        List<NearbyPerson> nearby = redis.findNearby(latitude, longitude, radiusKm, limit);
+        return nearby != null ? nearby : fallback.findNearby(latitude, longitude, radiusKm, limit);
+    }
+
+    @Override
+    public List<byte[]> autocompleteJson(String prefix, int limit) {
+        String term = SearchTerms.normalize(prefix);
+        if (term.isEmpty()) {
+            return List.of();
+        }
+        return cached(AUTOCOMPLETE_PREFIX + limit + ":" + term, () -> {
+            List<byte[]> json = redis.autocompleteJson(term, limit);
+            return json != null ? json : toJson(fallback.autocomplete(term, limit));
+        });
+    }
 
+    /**
+     * True when some field has none of its values in the bloom filter, so the
+     * intersection is empty without asking Redis.
+     */
+    private boolean definitelyEmpty(PeopleSearch search) {
+        return search.indexGroups().stream()
+                .anyMatch(group -> group.stream().noneMatch(redis::mightContain));
+    }
+
+    /**
+     * L1 lookup whose misses are coalesced per key and cache version, so a burst
+     * of identical requests costs one Redis fetch or one database query.
+     */
+    private <T> T cached(String key, Supplier<T> loader) {
+        return nearCache.get(key, () -> singleFlight.execute(nearCache.version() + ":" + key, loader));
+    }
+
+    private List<Person> fallbackFind(PeopleFilter filter) {
+        return switch (filter.field()) {
+            case ALL -> fallback.findAll();
+            case CITY -> fallback.findByCity(filter.value());
+            case STATE -> fallback.findByState(filter.value());
+            case COUNTRY -> fallback.findByCountry(filter.value());
+        };
+    }
+
+    private List<byte[]> toJson(List<Person> people) {
+        return people.stream().map(this::toJson).toList();
+    }
+
+    private byte[] toJson(Person person) {
+        try {
+            return objectMapper.writeValueAsBytes(person);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize person " + person.getId(), e);
+        }
+    }
+
+    private static long parseDatabaseCursor(String cursor) {
+        if (cursor == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(cursor.substring(DATABASE_CURSOR.length()));
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+-- Bumps the cache version and, when ARGV[1] is not empty, makes it the live
+-- generation, keeping it plus ARGV[2] older generations in the retained list.
+-- KEYS: live pointer, retained list, version counter, lease, generations being built.
+-- Fenced: nothing changes unless the lease is still held as ARGV[3].
+-- Returns the live generation, the new version and the generations retired,
+-- or an empty reply when the lease was lost.
+if redis.call('GET', KEYS[4]) ~= ARGV[3] then
+    return {}
+end
+
+local retired = {}
+if ARGV[1] ~= '' then
+    local keep = tonumber(ARGV[2]) + 1
+    redis.call('SET', KEYS[1], ARGV[1])
+    redis.call('LPUSH', KEYS[2], ARGV[1])
+    redis.call('SREM', KEYS[5], ARGV[1])
+    retired = redis.call('LRANGE', KEYS[2], keep, -1)
+    redis.call('LTRIM', KEYS[2], 0, keep - 1)
+end
+
+local live = redis.call('GET', KEYS[1]) or '0'
+local result = { live, tostring(redis.call('INCR', KEYS[3])) }
+for i = 1, #retired do
+    result[i + 2] = retired[i]
+end
+return result
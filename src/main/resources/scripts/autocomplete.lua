@@ -0,0 +1,49 @@
+-- Prefix lookup over a lex-ordered set whose members are "term\0personKey".
+-- ARGV[1] = generation prefix of the person keys, ARGV[2] / ARGV[3] = ZRANGEBYLEX
+-- bounds of the prefix, ARGV[4] = max people.
+-- Returns the payloads of up to ARGV[4] distinct people in term order (a whole
+-- word match sorts before longer terms), or false when the set does not exist.
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return false
+end
+
+local limit = tonumber(ARGV[4])
+local batch = limit * 2
+local seen = {}
+local keys = {}
+local offset = 0
+-- A person matching through several terms is counted once; the scan is bounded
+-- so a very common prefix cannot keep the script running.
+for _ = 1, 8 do
+    local members = redis.call('ZRANGEBYLEX', KEYS[1], ARGV[2], ARGV[3], 'LIMIT', offset, batch)
+    for i = 1, #members do
+        local separator = string.find(members[i], '\0', 1, true)
+        if separator then
+            local key = string.sub(members[i], separator + 1)
+            if not seen[key] then
+                seen[key] = true
+                keys[#keys + 1] = ARGV[1] .. key
+                if #keys == limit then
+                    break
+                end
+            end
+        end
+    end
+    if #keys == limit or #members < batch then
+        break
+    end
+    offset = offset + batch
+end
+
+if #keys == 0 then
+    return {}
+end
+
+local payloads = {}
+local values = redis.call('MGET', unpack(keys))
+for i = 1, #keys do
+    if values[i] then
+        payloads[#payloads + 1] = values[i]
+    end
+end
+return payloads
@@ -0,0 +1,10 @@
+-- Records fencing token ARGV[1] in KEYS[1], the fence of one generation, unless
+-- a higher token is already there: a node that stalled past its lease can never
+-- take a generation back from a newer holder.
+-- Returns 1 when the token was recorded, 0 otherwise.
+local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+if current > tonumber(ARGV[1]) then
+    return 0
+end
+redis.call('SET', KEYS[1], ARGV[1])
+return 1
@@ -0,0 +1,16 @@
+-- Applies a batch of writes to one generation only while its fence KEYS[1] still
+-- holds fencing token ARGV[1]. ARGV[2..] lists the commands, each as its argument
+-- count followed by the command name and its arguments; every key belongs to the
+-- generation, so it shares the fence's hash slot.
+-- Returns 1 when applied, 0 when the generation was claimed by a newer token.
+if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+    return 0
+end
+
+local i = 2
+while i <= #ARGV do
+    local n = tonumber(ARGV[i])
+    redis.call(unpack(ARGV, i + 1, i + n))
+    i = i + n + 1
+end
+return 1
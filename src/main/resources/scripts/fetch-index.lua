@@ -0,0 +1,67 @@
+-- Scans an index set and returns the cursor to resume from, the last member
+-- served and the batch's own next cursor when the page ended inside an SSCAN
+-- batch (or ''), followed by the payloads of the scanned members (nil when missing).
+-- ARGV: cursor, SSCAN count, namespace (members are stored without it),
+-- limit, member to resume after, cursor that batch originally returned.
+-- With limit 0 this is a single SSCAN step. Otherwise steps are taken until
+-- exactly `limit` members are collected; each batch is sorted so a page that
+-- ends inside it can resume by rescanning the same cursor past its last member.
+-- If the rescan returns another cursor the set was resized and the batch may
+-- hold other members, so it is served whole: repeats, never skips.
+-- KEYS[2] is the generation's person_keys; {} is returned when it is gone.
+if redis.call('EXISTS', KEYS[2]) == 0 then
+    return {}
+end
+
+local cursor = ARGV[1]
+local limit = tonumber(ARGV[4])
+local after = ARGV[5]
+local members = {}
+local resume = nil
+local batchEnd = nil
+
+repeat
+    local page = redis.call('SSCAN', KEYS[1], cursor, 'COUNT', ARGV[2])
+    local batch = page[2]
+    if limit == 0 then
+        members = batch
+        cursor = page[1]
+        break
+    end
+
+    if page[1] ~= ARGV[6] then
+        after = ''
+    end
+    table.sort(batch)
+    for i = 1, #batch do
+        if after == '' or batch[i] > after then
+            if #members == limit then
+                resume = members[#members]
+                batchEnd = page[1]
+                break
+            end
+            members[#members + 1] = batch[i]
+        end
+    end
+    if resume then
+        break
+    end
+    cursor = page[1]
+    after = ''
+until #members == limit or cursor == '0'
+
+local result = { cursor, resume or '', batchEnd or '' }
+if #members == 0 then
+    return result
+end
+
+local keys = {}
+for i = 1, #members do
+    keys[i] = ARGV[3] .. members[i]
+end
+
+local payloads = redis.call('MGET', unpack(keys))
+for i = 1, #members do
+    result[i + 3] = payloads[i]
+end
+return result
@@ -0,0 +1,19 @@
+-- Drops the live generation from the retained list and makes the previous one
+-- live again. KEYS: live pointer, retained list, version counter, lease.
+-- Fenced: nothing changes unless the lease is still held as ARGV[1], so no
+-- rebuild or delta refresh can be writing to the generation being retired.
+-- Returns the live generation, the new version and the generation retired,
+-- an empty reply when there is nothing to roll back to, or nil when the lease was lost.
+if redis.call('GET', KEYS[4]) ~= ARGV[1] then
+    return false
+end
+
+local current = redis.call('LINDEX', KEYS[2], 0)
+local previous = redis.call('LINDEX', KEYS[2], 1)
+if not previous then
+    return {}
+end
+
+redis.call('LPOP', KEYS[2])
+redis.call('SET', KEYS[1], previous)
+return { previous, tostring(redis.call('INCR', KEYS[3])), current }
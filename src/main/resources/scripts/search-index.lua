@@ -0,0 +1,168 @@
+-- Compound filter over index sets: AND across groups of KEYS, OR within a group.
+-- KEYS[1] = person_keys of the generation, KEYS[2..] = the index sets by group.
+-- ARGV[1] = 'count' | 'fetch', ARGV[2] = generation prefix of the members,
+-- ARGV[3] = number of groups G, ARGV[4..3+G] = number of keys in each group.
+-- fetch also takes: limit, scan budget, then the position to resume from:
+-- group, key within it, SSCAN cursor, that batch's next cursor, last member seen.
+-- Returns -1 (count) or {} (fetch) when the generation is gone. Otherwise
+-- count returns the match count and fetch returns the resume position
+-- ('' when done) followed by the payloads of at most `limit` matches.
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    if ARGV[1] == 'count' then
+        return -1
+    end
+    return {}
+end
+
+local groups = {}
+local k = 2
+local groupCount = tonumber(ARGV[3])
+for i = 1, groupCount do
+    local group = { keys = {}, sizes = {}, size = 0 }
+    for j = 1, tonumber(ARGV[3 + i]) do
+        group.keys[j] = KEYS[k]
+        group.sizes[j] = redis.call('SCARD', KEYS[k])
+        group.size = group.size + group.sizes[j]
+        k = k + 1
+    end
+    groups[i] = group
+end
+
+local function inEveryGroupBut(skip, member)
+    for g = 1, #groups do
+        if g ~= skip then
+            local found = false
+            for _, key in ipairs(groups[g].keys) do
+                if redis.call('SISMEMBER', key, member) == 1 then
+                    found = true
+                    break
+                end
+            end
+            if not found then
+                return false
+            end
+        end
+    end
+    return true
+end
+
+if ARGV[1] == 'count' then
+    if #groups == 1 then
+        return groups[1].size
+    end
+    -- Keys of a group are disjoint, so the count is the sum of the native
+    -- intersections of every combination of one key per group; there are only
+    -- as many as the request has values, and empty sets are skipped.
+    -- SINTERCARD needs Redis 7; older servers count a SINTER instead.
+    local combination = {}
+    local count = 0
+    local intercard = true
+    local function countFrom(g)
+        if g > #groups then
+            if intercard then
+                local card = redis.pcall('SINTERCARD', #combination, unpack(combination))
+                if type(card) == 'number' then
+                    count = count + card
+                    return
+                end
+                intercard = false
+            end
+            count = count + #redis.call('SINTER', unpack(combination))
+            return
+        end
+        for j, key in ipairs(groups[g].keys) do
+            if groups[g].sizes[j] > 0 then
+                combination[g] = key
+                countFrom(g + 1)
+            end
+        end
+    end
+    countFrom(1)
+    return count
+end
+
+-- fetch: page through the keys of one group (the smallest, picked on the first
+-- page and then carried by the cursor). Keys of a group are disjoint, since a
+-- person has one city, state and country. Batches are sorted so a page ending
+-- inside one resumes by rescanning it past the last member seen; if the rescan
+-- returns another cursor the set was resized and the batch is seen whole.
+local p = 4 + groupCount
+local limit = tonumber(ARGV[p])
+local budget = tonumber(ARGV[p + 1])
+local gi = tonumber(ARGV[p + 2])
+local ki = tonumber(ARGV[p + 3])
+local cursor = ARGV[p + 4]
+local batchEnd = ARGV[p + 5]
+local after = ARGV[p + 6]
+if gi == 0 then
+    gi = 1
+    for g = 2, #groups do
+        if groups[g].size < groups[gi].size then
+            gi = g
+        end
+    end
+    ki = 1
+end
+local keys = groups[gi].keys
+
+local members = {}
+local seen = 0
+local last = nil
+local resumeAt = ''
+while true do
+    local page = redis.call('SSCAN', keys[ki], cursor, 'COUNT', limit)
+    local batch = page[2]
+    if page[1] ~= batchEnd then
+        after = ''
+    end
+    table.sort(batch)
+    local stopped = false
+    for i = 1, #batch do
+        if after == '' or batch[i] > after then
+            if #members == limit or seen == budget then
+                stopped = true
+                break
+            end
+            seen = seen + 1
+            last = batch[i]
+            if inEveryGroupBut(gi, last) then
+                members[#members + 1] = last
+            end
+        end
+    end
+    if stopped then
+        resumeAt = table.concat({ gi, ki, cursor, page[1], last }, '-')
+        break
+    end
+
+    cursor = page[1]
+    after = ''
+    batchEnd = ''
+    if cursor == '0' then
+        ki = ki + 1
+        if ki > #keys then
+            break
+        end
+    end
+    if #members == limit or seen == budget then
+        resumeAt = table.concat({ gi, ki, cursor, '', '' }, '-')
+        break
+    end
+end
+
+local result = { resumeAt }
+if #members == 0 then
+    return result
+end
+
+local memberKeys = {}
+for i = 1, #members do
+    memberKeys[i] = ARGV[2] .. members[i]
+end
+local payloads = redis.call('MGET', unpack(memberKeys))
+for i = 1, #members do
+    if payloads[i] then
+        result[#result + 1] = payloads[i]
+    end
+end
+return result
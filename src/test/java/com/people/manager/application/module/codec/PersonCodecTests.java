@@ -0,0 +1,140 @@
+package com.people.manager.application.module.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.people.manager.application.module.configs.JacksonConfig;
+import com.people.manager.application.module.model.Address;
+import com.people.manager.application.module.model.Person;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersonCodecTests {
+
+    private static final Logger log = LoggerFactory.getLogger(PersonCodecTests.class);
+    private static final int PEOPLE = 10_000;
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final JsonPersonCodec json = new JsonPersonCodec(objectMapper);
+    private final SmilePersonCodec smile = new SmilePersonCodec();
+
+    @Test
+    void legacyJsonPayloadsAreStillReadable() throws IOException {
+        PersonPayloads payloads = new PersonPayloads(List.of(json, smile), objectMapper, "smile");
+        Person person = person(1, new Random(1));
+
+        byte[] legacy = objectMapper.writeValueAsBytes(person);
+
+        assertThat(payloads.decode(legacy).getCpf()).isEqualTo(person.getCpf());
+        assertThat(payloads.toJson(legacy)).isEqualTo(legacy);
+    }
+
+    @Test
+    void payloadsRoundTripAcrossCodecs() throws IOException {
+        PersonPayloads jsonPayloads = new PersonPayloads(List.of(json, smile), objectMapper, "json");
+        PersonPayloads smilePayloads = new PersonPayloads(List.of(json, smile), objectMapper, "smile");
+        Person person = person(42, new Random(42));
+
+        byte[] fromJson = jsonPayloads.encode(person);
+        byte[] fromSmile = smilePayloads.encode(person);
+
+        assertSamePerson(smilePayloads.decode(fromJson), person);
+        assertSamePerson(jsonPayloads.decode(fromSmile), person);
+        assertThat(jsonPayloads.toJson(fromSmile)).isEqualTo(objectMapper.writeValueAsBytes(person));
+        assertThat(smilePayloads.toJson(fromJson)).isEqualTo(objectMapper.writeValueAsBytes(person));
+    }
+
+    @Test
+    void smileIsMoreCompactThanJson() throws IOException {
+        List<Person> people = generate();
+
+        long jsonBytes = measure("json", json, people);
+        long smileBytes = measure("smile", smile, people);
+
+        assertThat(smileBytes).isLessThan(jsonBytes);
+    }
+
+    private long measure(String label, PersonCodec codec, List<Person> people) throws IOException {
+        List<byte[]> encoded = new ArrayList<>(people.size());
+        long bytes = 0;
+
+        long encodeStart = System.nanoTime();
+        for (Person person : people) {
+            byte[] data = codec.encode(person);
+            encoded.add(data);
+            bytes += data.length;
+        }
+        long encodeNanos = System.nanoTime() - encodeStart;
+
+        long decodeStart = System.nanoTime();
+        for (byte[] data : encoded) {
+            codec.decode(data, 0, data.length);
+        }
+        long decodeNanos = System.nanoTime() - decodeStart;
+
+        log.info("{}: {} people, {} bytes total, {} bytes/person, encode {} ops/s, decode {} ops/s",
+                label, people.size(), bytes, bytes / people.size(),
+                people.size() * 1_000_000_000L / Math.max(encodeNanos, 1),
+                people.size() * 1_000_000_000L / Math.max(decodeNanos, 1));
+        return bytes;
+    }
+
+    private static List<Person> generate() {
+        Random random = new Random(7);
+        List<Person> people = new ArrayList<>(PEOPLE);
+        for (int i = 1; i <= PEOPLE; i++) {
+            people.add(person(i, random));
+        }
+        return people;
+    }
+
+    private static Person person(long id, Random random) {
+        String[] cities = {"São Paulo", "Rio de Janeiro", "Belo Horizonte", "Recife", "Curitiba"};
+        String[] states = {"SP", "RJ", "MG", "PE", "PR"};
+        int location = random.nextInt(cities.length);
+        LocalDateTime timestamp = LocalDateTime.of(2024, 1, 1, 8, 30).plusMinutes(random.nextInt(500_000));
+
+        Person person = new Person();
+        person.setId(id);
+        person.setName("Person " + id);
+        person.setCpf(String.format("%011d", id));
+        person.setBirthDate(LocalDate.of(1950, 1, 1).plusDays(random.nextInt(20_000)));
+        person.setPhoneNumber("+55 11 9" + (10_000_000 + random.nextInt(89_999_999)));
+        person.setEmail("person" + id + "@example.com");
+        person.setCreatedAt(timestamp);
+        person.setUpdatedAt(timestamp);
+
+        Address address = new Address();
+        address.setId(id);
+        address.setPerson(person);
+        address.setCountry("Brasil");
+        address.setState(states[location]);
+        address.setCity(cities[location]);
+        address.setDistrict("Centro");
+        address.setStreet("Rua " + random.nextInt(1_000));
+        address.setAddressDetail("Apto " + random.nextInt(300));
+        address.setLatitude(-23.5 + random.nextDouble());
+        address.setLongitude(-46.6 + random.nextDouble());
+        address.setCreatedAt(timestamp);
+        address.setUpdatedAt(timestamp);
+        person.setAddress(address);
+        return person;
+    }
+
+    private static void assertSamePerson(Person actual, Person expected) {
+        assertThat(actual.getId()).isEqualTo(expected.getId());
+        assertThat(actual.getCpf()).isEqualTo(expected.getCpf());
+        assertThat(actual.getBirthDate()).isEqualTo(expected.getBirthDate());
+        assertThat(actual.getUpdatedAt()).isEqualTo(expected.getUpdatedAt());
+        assertThat(actual.getAddress().getCity()).isEqualTo(expected.getAddress().getCity());
+        assertThat(actual.getAddress().getLatitude()).isEqualTo(expected.getAddress().getLatitude());
+    }
+}
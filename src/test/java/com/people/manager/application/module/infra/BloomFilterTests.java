@@ -0,0 +1,49 @@
+package com.people.manager.application.module.infra;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTests {
+
+    private static final int ITEMS = 100_000;
+
+    @Test
+    void addedItemsAreAlwaysFoundAndMissesStayNearTheTargetRate() {
+        BloomFilter filter = BloomFilter.create(ITEMS, 0.01);
+        for (int i = 0; i < ITEMS; i++) {
+            filter.add(CacheKeys.personByCpf(String.format("%011d", i)));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < ITEMS; i++) {
+            assertThat(filter.mightContain(CacheKeys.personByCpf(String.format("%011d", i)))).isTrue();
+            if (filter.mightContain(CacheKeys.personByCpf(String.format("%011d", ITEMS + i)))) {
+                falsePositives++;
+            }
+        }
+
+        assertThat((double) falsePositives / ITEMS).isLessThan(0.02);
+    }
+
+    @Test
+    void bitLayoutMatchesRedisSetbit() {
+        BloomFilter filter = BloomFilter.create(1, 0.5);
+        long position = BloomFilter.positions("people_by_city_Recife", filter.bitSize(), filter.hashes())[0];
+        filter.add("people_by_city_Recife");
+
+        // SETBIT key n 1 sets bit (7 - n % 8) of byte n / 8
+        assertThat(filter.toByteArray()[(int) (position / 8)] & (1 << (7 - position % 8))).isNotZero();
+
+        // Redis only allocates the bitmap up to the highest bit ever set
+        byte[] bitmap = filter.toByteArray();
+        int used = bitmap.length;
+        while (used > 0 && bitmap[used - 1] == 0) {
+            used--;
+        }
+        BloomFilter fromRedis = BloomFilter.of(Arrays.copyOf(bitmap, used), filter.bitSize(), filter.hashes());
+        assertThat(fromRedis.mightContain("people_by_city_Recife")).isTrue();
+    }
+}
@@ -0,0 +1,24 @@
+package com.people.manager.application.module.infra;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NearCacheTests {
+
+    @Test
+    void versionNeverMovesBackwards() {
+        NearCache cache = new NearCache(new SimpleMeterRegistry(), 100);
+        cache.advanceTo(6);
+        cache.get("key", () -> "loaded at 6");
+
+        cache.advanceTo(5);
+
+        assertThat(cache.version()).isEqualTo(6);
+        assertThat(cache.<String>get("key", () -> "reloaded")).isEqualTo("loaded at 6");
+
+        cache.advanceTo(7);
+        assertThat(cache.<String>get("key", () -> "reloaded")).isEqualTo("reloaded");
+    }
+}
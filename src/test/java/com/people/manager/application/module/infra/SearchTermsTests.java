@@ -0,0 +1,26 @@
+package com.people.manager.application.module.infra;
+
+import com.people.manager.application.module.model.Person;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchTermsTests {
+
+    @Test
+    void normalizationDropsAccentsCaseAndExtraSpaces() {
+        assertThat(SearchTerms.normalize("  JOÃO  da\tConceição ")).isEqualTo("joao da conceicao");
+        assertThat(SearchTerms.normalize(null)).isEmpty();
+        assertThat(SearchTerms.normalize("a".repeat(100))).hasSize(SearchTerms.MAX_TERM_LENGTH);
+    }
+
+    @Test
+    void namesAreIndexedFromEveryWordAndEmailsWhole() {
+        Person person = new Person();
+        person.setName("Maria da Silva");
+        person.setEmail("Maria.Silva@Example.com");
+
+        assertThat(SearchTerms.of(person))
+                .containsExactly("maria da silva", "da silva", "silva", "maria.silva@example.com");
+    }
+}
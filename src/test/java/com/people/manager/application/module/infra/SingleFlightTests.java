@@ -0,0 +1,80 @@
+package com.people.manager.application.module.infra;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SingleFlightTests {
+
+    private static final int CALLERS = 50;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void concurrentCallsForOneKeyShareASingleLoad() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(registry, 5_000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("city:São Paulo", () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "people";
+                })));
+            }
+            while (registry.counter("people.single_flight.calls", "role", "follower").count() < CALLERS - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get()).isEqualTo("people");
+            }
+        }
+
+        assertThat(loads).hasValue(1);
+        assertThat(registry.counter("people.single_flight.calls", "role", "leader").count()).isEqualTo(1);
+    }
+
+    @Test
+    void followerLoadsOnItsOwnAfterTheMaxWait() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(registry, 50);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+                await(release);
+                return "slow";
+            }));
+            while (registry.counter("people.single_flight.calls", "role", "leader").count() < 1) {
+                Thread.sleep(5);
+            }
+
+            assertThat(singleFlight.execute("key", () -> "own")).isEqualTo("own");
+            assertThat(registry.counter("people.single_flight.timeouts").count()).isEqualTo(1);
+
+            release.countDown();
+            assertThat(leader.get()).isEqualTo("slow");
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.people.manager.application.module.repository;
+
+import com.people.manager.application.module.model.Address;
+import com.people.manager.application.module.model.GroupCount;
+import com.people.manager.application.module.model.Person;
+import com.people.manager.application.module.model.PersonView;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class PersonRepositoryTests {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PersonRepository repository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void findersLoadPeopleWithAddressesInOneStatementRegardlessOfCount() {
+        int persisted = 0;
+        for (int size : new int[]{5, 50}) {
+            persist(persisted + 1, size);
+            persisted = size;
+
+            assertThat(statements(() -> repository.findAll())).isEqualTo(1);
+            assertThat(statements(() -> repository.findByAddressCity("Recife"))).isEqualTo(1);
+            assertThat(statements(() -> repository.findByAddressCountry("Brasil"))).isEqualTo(1);
+            assertThat(statements(() -> repository.findByCpf("00000000001"))).isEqualTo(1);
+            assertThat(statements(() -> repository.findByCpfIn(List.of("00000000001", "00000000005")))).isEqualTo(1);
+            assertThat(statements(() -> repository.findViewChunkBetween(0, Long.MAX_VALUE, Limit.of(size)))).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void viewRebuildsDetachedPersonWithAddress() {
+        persist(1, 2);
+        long firstId = repository.findMinId();
+
+        List<PersonView> views = repository.findViewChunkBetween(firstId - 1, firstId, Limit.of(10));
+
+        assertThat(views).hasSize(1);
+        Person person = views.getFirst().toPerson();
+        assertThat(person.getCpf()).isEqualTo("00000000001");
+        assertThat(person.getAddress().getCity()).isEqualTo("Recife");
+        assertThat(person.getAddress().getPerson()).isSameAs(person);
+    }
+
+    @Test
+    void searchMatchesAnyValueWithinAFieldAndEveryFieldGiven() {
+        persist(1, 3);
+        repository.findAll().forEach(person -> person.getAddress().setCity("City " + Long.parseLong(person.getCpf())));
+        entityManager.flush();
+
+        List<Person> found = repository.searchChunkAfter(false, List.of("City 1", "City 3"), false, List.of("PE"),
+                true, List.of(""), 0, Limit.of(10));
+
+        assertThat(found).extracting(Person::getCpf).containsExactly("00000000001", "00000000003");
+        assertThat(repository.searchChunkAfter(false, List.of("City 1", "City 3"), false, List.of("PE"),
+                true, List.of(""), found.getFirst().getId(), Limit.of(10)))
+                .extracting(Person::getCpf).containsExactly("00000000003");
+        assertThat(repository.countSearch(false, List.of("City 2"), true, List.of(""), false, List.of("Brasil")))
+                .isEqualTo(1);
+        assertThat(repository.countSearch(true, List.of(""), false, List.of("SP"), true, List.of(""))).isZero();
+    }
+
+    @Test
+    void groupCountsAreComputedByTheDatabase() {
+        persist(1, 3);
+
+        assertThat(repository.countByCity()).containsExactly(new GroupCount<>("Recife", 3L));
+        assertThat(repository.countByBirthDate()).containsExactly(new GroupCount<>(LocalDate.of(1990, 1, 1), 3L));
+    }
+
+    @Test
+    void boxQuerySkipsPeopleWithoutCoordinates() {
+        persist(1, 3);
+        repository.findAll().forEach(person -> {
+            long n = Long.parseLong(person.getCpf());
+            if (n < 3) {
+                person.getAddress().setLatitude(-8.0 - n);
+                person.getAddress().setLongitude(-34.9);
+            }
+        });
+        entityManager.flush();
+
+        assertThat(repository.findInBox(-9.5, -8.5, -35, -34.8, -9, -34.9, 1, Limit.of(10)))
+                .extracting(Person::getCpf).containsExactly("00000000001");
+        assertThat(repository.findInBox(-90, 90, -180, 180, -11, -34.9, 1, Limit.of(10)))
+                .extracting(Person::getCpf).containsExactly("00000000002", "00000000001");
+        assertThat(repository.findInBox(-90, 90, -180, 180, -8, -34.9, 1, Limit.of(1)))
+                .extracting(Person::getCpf).containsExactly("00000000001");
+    }
+
+    @Test
+    void nameOrEmailPrefixMatchesAnyWordOfTheName() {
+        persist(1, 3);
+        repository.findAll().forEach(person -> {
+            long n = Long.parseLong(person.getCpf());
+            person.setName(n == 1 ? "Ana Souza" : n == 2 ? "Mariana Souza" : "Bruno Lima");
+            person.setEmail(n == 3 ? "ana_b@example.com" : "p" + n + "@example.com");
+        });
+        entityManager.flush();
+
+        assertThat(repository.findByNameOrEmailLike("ana%", "% ana%", Limit.of(10))).extracting(Person::getName)
+                .containsExactly("Ana Souza", "Bruno Lima");
+        assertThat(repository.findByNameOrEmailLike("ana\\_%", "% ana\\_%", Limit.of(10))).extracting(Person::getName)
+                .containsExactly("Bruno Lima");
+        assertThat(repository.findByNameOrEmailLike("souza%", "% souza%", Limit.of(1))).hasSize(1);
+    }
+
+    private long statements(Supplier<?> query) {
+        entityManager.clear();
+        statistics.clear();
+        Object result = query.get();
+        if (result instanceof List<?> people) {
+            people.forEach(p -> {
+                if (p instanceof Person person) {
+                    person.getAddress().getCity();
+                }
+            });
+        }
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void persist(int fromId, int toId) {
+        for (int id = fromId; id <= toId; id++) {
+            Person person = new Person();
+            person.setName("Person " + id);
+            person.setCpf(String.format("%011d", id));
+            person.setBirthDate(LocalDate.of(1990, 1, 1));
+
+            Address address = new Address();
+            address.setPerson(person);
+            address.setCountry("Brasil");
+            address.setState("PE");
+            address.setCity("Recife");
+            person.setAddress(address);
+            entityManager.persist(person);
+        }
+        entityManager.flush();
+    }
+}
@@ -0,0 +1,29 @@
+package com.people.manager.application.module.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PeopleGroupTests {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 15);
+
+    @Test
+    void ageBucketsFlipOnTheBirthday() {
+        assertThat(PeopleGroup.ageBucket(LocalDate.of(2025, 1, 1), TODAY)).isEqualTo("0-17");
+        assertThat(PeopleGroup.ageBucket(LocalDate.of(2007, 6, 16), TODAY)).isEqualTo("0-17");
+        assertThat(PeopleGroup.ageBucket(LocalDate.of(2007, 6, 15), TODAY)).isEqualTo("18-24");
+        assertThat(PeopleGroup.ageBucket(LocalDate.of(1990, 1, 1), TODAY)).isEqualTo("35-44");
+        assertThat(PeopleGroup.ageBucket(LocalDate.of(1960, 6, 15), TODAY)).isEqualTo("65+");
+    }
+
+    @Test
+    void groupNamesAreCaseInsensitive() {
+        assertThat(PeopleGroup.of("state")).isEqualTo(PeopleGroup.STATE);
+        assertThat(PeopleGroup.AGE.countsKey()).isEqualTo("counts_by_age");
+        assertThatThrownBy(() -> PeopleGroup.of("district")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
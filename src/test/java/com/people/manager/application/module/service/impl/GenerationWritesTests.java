@@ -0,0 +1,29 @@
+package com.people.manager.application.module.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GenerationWritesTests {
+
+    @Test
+    void recordedCommandsAreFlattenedWithTheirArgumentCount() {
+        GenerationWrites.Recorded writes = new GenerationWrites.Recorded();
+        writes.set(bytes("k"), bytes("v"));
+        writes.zAdd(bytes("z"), bytes("a"), bytes("b"));
+        writes.setBit(bytes("bloom"), 42);
+        writes.rPush(bytes("log"), bytes("x"), bytes("y"));
+
+        assertThat(writes.arguments()).extracting(b -> new String(b, StandardCharsets.UTF_8)).containsExactly(
+                "3", "SET", "k", "v",
+                "6", "ZADD", "z", "0", "a", "0", "b",
+                "4", "SETBIT", "bloom", "42", "1",
+                "4", "RPUSH", "log", "x", "y");
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
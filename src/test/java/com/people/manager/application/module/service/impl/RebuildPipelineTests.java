@@ -0,0 +1,111 @@
+package com.people.manager.application.module.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RebuildPipelineTests {
+
+    @Test
+    void rangesCoverEveryIdExactlyOnce() {
+        List<RebuildPipeline.Range> ranges = RebuildPipeline.Range.split(7, 10_006, 16, 100);
+
+        assertThat(ranges).hasSizeLessThanOrEqualTo(16);
+        assertThat(ranges.getFirst().fromExclusive()).isEqualTo(6);
+        assertThat(ranges.getLast().toInclusive()).isEqualTo(10_006);
+        for (int i = 1; i < ranges.size(); i++) {
+            assertThat(ranges.get(i).fromExclusive()).isEqualTo(ranges.get(i - 1).toInclusive());
+        }
+        assertThat(RebuildPipeline.Range.split(5, 4, 16, 100)).isEmpty();
+    }
+
+    @Test
+    @Timeout(10)
+    void everyRowIsWrittenOnceThroughASmallQueue() {
+        RebuildPipeline<Long> pipeline = new RebuildPipeline<>(3, 2, 1);
+        ConcurrentLinkedQueue<Long> written = new ConcurrentLinkedQueue<>();
+
+        RebuildPipeline.Stats stats = pipeline.run(RebuildPipeline.Range.split(1, 5_000, 12, 1),
+                (range, emit) -> {
+                    for (long from = range.fromExclusive(); from < range.toInclusive(); from += 50) {
+                        emit.accept(LongStream.rangeClosed(from + 1, Math.min(from + 50, range.toInclusive()))
+                                .boxed().toList());
+                    }
+                },
+                () -> writer(written::addAll));
+
+        assertThat(new ArrayList<>(written)).hasSize(5_000).doesNotHaveDuplicates();
+        assertThat(stats.read().rows()).isEqualTo(5_000);
+        assertThat(stats.write().rows()).isEqualTo(5_000);
+    }
+
+    @Test
+    @Timeout(10)
+    void aFailingWriterStopsBlockedReadersAndIsRethrown() {
+        RebuildPipeline<Long> pipeline = new RebuildPipeline<>(2, 1, 1);
+
+        assertThatThrownBy(() -> pipeline.run(RebuildPipeline.Range.split(1, 1_000_000, 2, 1),
+                (range, emit) -> {
+                    for (long id = range.fromExclusive() + 1; id <= range.toInclusive(); id++) {
+                        emit.accept(List.of(id));
+                    }
+                },
+                () -> writer(chunk -> {
+                    throw new IllegalStateException("redis down");
+                })))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("redis down");
+    }
+
+    @Test
+    @Timeout(10)
+    void writersAreOpenedOncePerRunAndClosed() {
+        RebuildPipeline<Long> pipeline = new RebuildPipeline<>(2, 3, 2);
+        AtomicInteger opened = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+
+        for (int run = 0; run < 2; run++) {
+            pipeline.run(RebuildPipeline.Range.split(1, 1_000, 8, 1),
+                    (range, emit) -> emit.accept(List.of(range.toInclusive())),
+                    () -> {
+                        opened.incrementAndGet();
+                        return new RebuildPipeline.Writer<>() {
+                            @Override
+                            public void write(List<Long> chunk) {
+                            }
+
+                            @Override
+                            public void close() {
+                                closed.incrementAndGet();
+                            }
+                        };
+                    });
+        }
+
+        assertThat(opened).hasValue(6);
+        assertThat(closed).hasValue(6);
+        pipeline.close();
+    }
+
+    private static RebuildPipeline.Writer<Long> writer(Consumer<List<Long>> sink) {
+        return new RebuildPipeline.Writer<>() {
+            @Override
+            public void write(List<Long> chunk) {
+                sink.accept(chunk);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}